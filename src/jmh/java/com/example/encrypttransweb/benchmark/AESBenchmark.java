@@ -0,0 +1,110 @@
+package com.example.encrypttransweb.benchmark;
+
+import com.example.encrypttransweb.utils.AESKey;
+import com.example.encrypttransweb.utils.SimpleAES;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimpleAES 与 JDK javax.crypto 的对比
+ * SimpleAES 不是标准 AES，结果与 JDK 不同，这里只比较同样工作模式下的速度和内存分配：
+ *  ECB：SimpleAES 旧数据包的方式，对比 AES/ECB/PKCS5Padding
+ *  CTR：新数据包默认的方式，对比 AES/CTR/NoPadding
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AESBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private byte[] plainText;
+    private byte[] iv;
+    private AESKey simpleKey;
+    private byte[] simpleEcb;
+    private byte[] simpleCtr;
+
+    private SecretKeySpec jdkKey;
+    private byte[] jdkEcb;
+    private byte[] jdkCtr;
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(size);
+        plainText = new byte[size];
+        random.nextBytes(plainText);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        iv = new byte[16];
+        random.nextBytes(iv);
+
+        simpleKey = new AESKey(key);
+        simpleEcb = SimpleAES.encrypt(plainText, simpleKey);
+        simpleCtr = SimpleAES.encrypt(plainText, simpleKey, SimpleAES.MODE_CTR, iv);
+
+        jdkKey = new SecretKeySpec(key, "AES");
+        Cipher ecb = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        ecb.init(Cipher.ENCRYPT_MODE, jdkKey);
+        jdkEcb = ecb.doFinal(plainText);
+        Cipher ctr = Cipher.getInstance("AES/CTR/NoPadding");
+        ctr.init(Cipher.ENCRYPT_MODE, jdkKey, new IvParameterSpec(iv));
+        jdkCtr = ctr.doFinal(plainText);
+    }
+
+    @Benchmark
+    public byte[] simpleEcbEncrypt() {
+        return SimpleAES.encrypt(plainText, simpleKey);
+    }
+
+    @Benchmark
+    public byte[] simpleEcbDecrypt() {
+        return SimpleAES.decrypt(simpleEcb, simpleKey);
+    }
+
+    @Benchmark
+    public byte[] simpleCtrEncrypt() {
+        return SimpleAES.encrypt(plainText, simpleKey, SimpleAES.MODE_CTR, iv);
+    }
+
+    @Benchmark
+    public byte[] simpleCtrDecrypt() {
+        return SimpleAES.decrypt(simpleCtr, simpleKey, SimpleAES.MODE_CTR, iv);
+    }
+
+    @Benchmark
+    public byte[] jdkEcbEncrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, jdkKey);
+        return cipher.doFinal(plainText);
+    }
+
+    @Benchmark
+    public byte[] jdkEcbDecrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, jdkKey);
+        return cipher.doFinal(jdkEcb);
+    }
+
+    @Benchmark
+    public byte[] jdkCtrEncrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, jdkKey, new IvParameterSpec(iv));
+        return cipher.doFinal(plainText);
+    }
+
+    @Benchmark
+    public byte[] jdkCtrDecrypt() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, jdkKey, new IvParameterSpec(iv));
+        return cipher.doFinal(jdkCtr);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.encrypttransweb.benchmark;
+
+import com.example.encrypttransweb.utils.SimpleBase64;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimpleBase64 与 JDK java.util.Base64 的对比，结果相同
+ * 分别测试 String 形式（JSON 接口使用）和 byte[] 形式
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base64Benchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private byte[] data;
+    private String encoded;
+    private byte[] encodedBytes;
+
+    @Setup
+    public void setup() {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        encoded = Base64.getEncoder().encodeToString(data);
+        encodedBytes = Base64.getEncoder().encode(data);
+    }
+
+    @Benchmark
+    public String simpleEncodeString() {
+        return SimpleBase64.byteToBase64(data);
+    }
+
+    @Benchmark
+    public byte[] simpleDecodeString() {
+        return SimpleBase64.base64ToByte(encoded);
+    }
+
+    @Benchmark
+    public byte[] simpleEncodeBytes() {
+        return SimpleBase64.encode(data);
+    }
+
+    @Benchmark
+    public byte[] simpleDecodeBytes() {
+        return SimpleBase64.decode(encodedBytes);
+    }
+
+    @Benchmark
+    public String jdkEncodeString() {
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+    @Benchmark
+    public byte[] jdkDecodeString() {
+        return Base64.getDecoder().decode(encoded);
+    }
+
+    @Benchmark
+    public byte[] jdkEncodeBytes() {
+        return Base64.getEncoder().encode(data);
+    }
+
+    @Benchmark
+    public byte[] jdkDecodeBytes() {
+        return Base64.getDecoder().decode(encodedBytes);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.encrypttransweb.benchmark;
+
+import com.example.encrypttransweb.utils.SimpleHMAC;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimpleHMAC 与 JDK HmacSHA256 的对比，结果相同
+ * precomputed 复用创建时压缩好的 ipad、opad 状态，oneShot 每次重新处理密钥，
+ * 小数据时两者的差别就是每次多压缩的两个块；与 RSABenchmark 的签名耗时对比可以看出 HMAC 模式省下的开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HMACBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    private byte[] key;
+    private byte[] data;
+    private SimpleHMAC hmac;
+    private Mac jdkMac;
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(size);
+        key = new byte[32];
+        random.nextBytes(key);
+        data = new byte[size];
+        random.nextBytes(data);
+        hmac = new SimpleHMAC(key);
+        jdkMac = Mac.getInstance("HmacSHA256");
+        jdkMac.init(new SecretKeySpec(key, "HmacSHA256"));
+    }
+
+    @Benchmark
+    public byte[] precomputed() {
+        return hmac.mac(data);
+    }
+
+    @Benchmark
+    public byte[] oneShot() {
+        return SimpleHMAC.hmacSha256(key, data);
+    }
+
+    @Benchmark
+    public byte[] jdkHmacSha256() {
+        return jdkMac.doFinal(data);
+    }
+}
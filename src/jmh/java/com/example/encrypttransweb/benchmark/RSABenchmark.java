@@ -0,0 +1,96 @@
+package com.example.encrypttransweb.benchmark;
+
+import com.example.encrypttransweb.utils.RSAPrivateKey;
+import com.example.encrypttransweb.utils.RSAPublicKey;
+import com.example.encrypttransweb.utils.SimpleRSA;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.RSAPrivateCrtKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimpleRSA 与 JDK RSA/ECB/NoPadding 的对比
+ * 两边使用同一对密钥，结果相同（JDK 的输出补齐到模数长度）
+ * RSA 只用来加密 AES Key（16 字节）和签名摘要（32 字节），数据长度不能超过模数，所以只测这两种长度
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RSABenchmark {
+
+    @Param({"1024", "2048"})
+    public int bits;
+
+    @Param({"16", "32"})
+    public int size;
+
+    private byte[] message;
+    private RSAPublicKey simplePublicKey;
+    private RSAPrivateKey simplePrivateKey;
+    private byte[] simpleEncrypted;
+
+    private PublicKey jdkPublicKey;
+    private PrivateKey jdkPrivateKey;
+    private byte[] jdkEncrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        message = new byte[size];
+        new Random(size).nextBytes(message);
+
+        SimpleRSA rsa = new SimpleRSA(bits);
+        rsa.generateKey();
+        simplePublicKey = rsa.getPublicKey();
+        simplePrivateKey = rsa.getPrivateKey();
+        simpleEncrypted = SimpleRSA.encrypt(message, simplePublicKey);
+
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        jdkPublicKey = keyFactory.generatePublic(new RSAPublicKeySpec(simplePublicKey.getModulus(), simplePublicKey.getExponent()));
+        jdkPrivateKey = keyFactory.generatePrivate(new RSAPrivateCrtKeySpec(
+                simplePrivateKey.getModulus(), simplePublicKey.getExponent(), simplePrivateKey.getExponent(),
+                simplePrivateKey.getP(), simplePrivateKey.getQ(),
+                simplePrivateKey.getDP(), simplePrivateKey.getDQ(), simplePrivateKey.getQInv()));
+        Cipher cipher = Cipher.getInstance("RSA/ECB/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, jdkPublicKey);
+        jdkEncrypted = cipher.doFinal(message);
+    }
+
+    /**
+     * 公钥运算（加密 AES Key、验签）
+     */
+    @Benchmark
+    public byte[] simplePublic() {
+        return SimpleRSA.encrypt(message, simplePublicKey);
+    }
+
+    /**
+     * 私钥运算（解密 AES Key、签名），使用 CRT
+     */
+    @Benchmark
+    public byte[] simplePrivate() {
+        return SimpleRSA.decrypt(simpleEncrypted, simplePrivateKey);
+    }
+
+    @Benchmark
+    public byte[] jdkPublic() throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA/ECB/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, jdkPublicKey);
+        return cipher.doFinal(message);
+    }
+
+    @Benchmark
+    public byte[] jdkPrivate() throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA/ECB/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, jdkPrivateKey);
+        return cipher.doFinal(jdkEncrypted);
+    }
+}
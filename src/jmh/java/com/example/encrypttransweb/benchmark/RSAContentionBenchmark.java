@@ -0,0 +1,93 @@
+package com.example.encrypttransweb.benchmark;
+
+import com.example.encrypttransweb.utils.RSAPrivateKey;
+import com.example.encrypttransweb.utils.RSAPublicKey;
+import com.example.encrypttransweb.utils.SimpleRSA;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RSA 多线程争用测试
+ * 对比 “全局锁” （旧版 static synchronized 的行为）和无锁两种方式下，私钥运算吞吐量随线程数的变化
+ * 无锁方式的吞吐量应当随核数近似线性增长，全局锁方式则始终停留在单核水平
+ * <p>
+ * 需要在同一轮中比较不同线程数，所以自己计时，不经过 JMH，与其他基准测试一样只在 jmh profile 下编译
+ * 运行方式：mvn -Pjmh test-compile exec:exec -Djmh.main=com.example.encrypttransweb.benchmark.RSAContentionBenchmark -Djmh.args=""
+ * 可选参数（-Djmh.args="..."）：[每轮时长(毫秒)] [最大线程数]
+ */
+public class RSAContentionBenchmark {
+
+    // 模拟旧版本所有 RSA 运算共用的一把锁
+    private static final Object GLOBAL_LOCK = new Object();
+
+    private interface Operation {
+        void run(byte[] message);
+    }
+
+    public static void main(String[] args) throws Exception {
+        long durationMillis = args.length > 0 ? Long.parseLong(args[0]) : 2000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        SimpleRSA rsa = new SimpleRSA(1024);
+        rsa.generateKey();
+        RSAPublicKey publicKey = rsa.getPublicKey();
+        RSAPrivateKey privateKey = rsa.getPrivateKey();
+        byte[] cipherKey = SimpleRSA.encrypt(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}, publicKey);
+
+        Operation lockFree = message -> SimpleRSA.decrypt(message, privateKey);
+        Operation globalLock = message -> {
+            synchronized (GLOBAL_LOCK) {
+                SimpleRSA.decrypt(message, privateKey);
+            }
+        };
+
+        // 预热
+        measure(lockFree, cipherKey, 1, durationMillis);
+
+        System.out.printf("%-8s %16s %16s %10s%n", "threads", "global-lock op/s", "lock-free op/s", "speedup");
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double locked = measure(globalLock, cipherKey, threads, durationMillis);
+            double free = measure(lockFree, cipherKey, threads, durationMillis);
+            if (threads == 1) {
+                baseline = free;
+            }
+            System.out.printf("%-8d %16.0f %16.0f %9.2fx%n", threads, locked, free, free / baseline);
+        }
+    }
+
+    /**
+     * 多线程执行指定时长，返回每秒操作数
+     */
+    private static double measure(Operation operation, byte[] message, int threads, long durationMillis) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long[] deadline = new long[1];
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline[0]) {
+                    operation.run(message);
+                    ops.increment();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long begin = System.nanoTime();
+        deadline[0] = begin + durationMillis * 1_000_000L;
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum() * 1e9 / (System.nanoTime() - begin);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.encrypttransweb.benchmark;
+
+import com.example.encrypttransweb.utils.MerkleSHA;
+import com.example.encrypttransweb.utils.SimpleSHA;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimpleSHA 与 JDK MessageDigest SHA-256 的对比，结果相同
+ * 同时列出 Merkle 树哈希，用于观察大数据量时并行计算的收益
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SHABenchmark {
+
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+    }
+
+    @Benchmark
+    public byte[] simpleSha256() {
+        return SimpleSHA.sha256(data);
+    }
+
+    @Benchmark
+    public byte[] merkleSha256() {
+        return MerkleSHA.treeHash(data);
+    }
+
+    @Benchmark
+    public byte[] jdkSha256() throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(data);
+    }
+}
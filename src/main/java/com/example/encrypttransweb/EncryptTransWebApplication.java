@@ -1,6 +1,5 @@
 package com.example.encrypttransweb;
 
-import com.example.encrypttransweb.utils.RSAInitializer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -8,9 +7,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class EncryptTransWebApplication {
 
     public static void main(String[] args) {
-        // 初始化 RSA 公私钥，如果启动多个项目通信，切记保证公私钥一致性
-        RSAInitializer.initializeKey();
-
+        // RSA 公私钥由 RSAKeyHolder 从 keys 目录加载，不存在时在后台生成
+        // 如果启动多个项目通信，切记保证公私钥一致性（共用同一份 keys 目录）
         SpringApplication.run(EncryptTransWebApplication.class, args);
     }
 
@@ -0,0 +1,79 @@
+package com.example.encrypttransweb.bean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量密文数据包
+ * 整批消息共用一个 AES Key，只做一次 RSA 加密和一次签名，每条消息使用各自的 IV 单独加密
+ * items 中的每一项只有 cipherText 和 cipherIv，密钥密文、工作模式和签名在批次上
+ */
+public class CipherBatch {
+
+    public CipherBatch(){}
+
+    public CipherBatch(String cipherKey, String cipherSignature, String cipherMode, List<CipherData> items) {
+        this.cipherKey = cipherKey;
+        this.cipherSignature = cipherSignature;
+        this.cipherMode = cipherMode;
+        this.items = items;
+    }
+
+    private String cipherKey;
+    // 对整批密文的签名，各条消息的顺序不能改变
+    private String cipherSignature;
+    private String cipherMode;
+    // 对称加密算法，为空时按 SIMPLE-AES 处理
+    private String cipherAlgorithm;
+    // RSA 密钥 ID，为空时按 rsa 处理
+    private String keyId;
+    private List<CipherData> items = new ArrayList<>();
+
+    public String getCipherKey() {
+        return cipherKey;
+    }
+
+    public void setCipherKey(String cipherKey) {
+        this.cipherKey = cipherKey;
+    }
+
+    public String getCipherSignature() {
+        return cipherSignature;
+    }
+
+    public void setCipherSignature(String cipherSignature) {
+        this.cipherSignature = cipherSignature;
+    }
+
+    public String getCipherMode() {
+        return cipherMode;
+    }
+
+    public void setCipherMode(String cipherMode) {
+        this.cipherMode = cipherMode;
+    }
+
+    public List<CipherData> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CipherData> items) {
+        this.items = items;
+    }
+
+    public String getCipherAlgorithm() {
+        return cipherAlgorithm;
+    }
+
+    public void setCipherAlgorithm(String cipherAlgorithm) {
+        this.cipherAlgorithm = cipherAlgorithm;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public void setKeyId(String keyId) {
+        this.keyId = keyId;
+    }
+}
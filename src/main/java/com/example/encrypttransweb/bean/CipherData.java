@@ -10,9 +10,27 @@ public class CipherData {
         this.cipherSignature = signatureSHA256;
     }
 
+    public CipherData(String cipherText, String encryptKey, String signatureSHA256, String cipherIv, String cipherMode) {
+        this(cipherText, encryptKey, signatureSHA256);
+        this.cipherIv = cipherIv;
+        this.cipherMode = cipherMode;
+    }
+
     private String cipherText;
     private String cipherKey;
     private String cipherSignature;
+    // AES 初始向量（CTR 模式下为初始计数器），ECB 模式没有
+    private String cipherIv;
+    // AES 工作模式 ECB / CBC / CTR，旧数据包没有该字段，按 ECB 处理
+    private String cipherMode;
+    // 签名摘要方式 SHA256 / MERKLE-SHA256，旧数据包没有该字段，按 SHA256 处理
+    private String signatureMode;
+    // 对称加密算法 SIMPLE-AES / AES，旧数据包没有该字段，按 SIMPLE-AES 处理
+    private String cipherAlgorithm;
+    // 加密使用的 RSA 密钥 ID，旧数据包没有该字段，按 rsa（keys/rsa.*.key）处理
+    private String keyId;
+    // 会话 ID，会话消息只用 AES 和 HMAC-SHA256，没有 cipherKey，签名字段为 HMAC
+    private String sessionId;
 
     public String getCipherText() {
         return cipherText;
@@ -37,4 +55,52 @@ public class CipherData {
     public void setCipherSignature(String cipherSignature) {
         this.cipherSignature = cipherSignature;
     }
+
+    public String getCipherIv() {
+        return cipherIv;
+    }
+
+    public void setCipherIv(String cipherIv) {
+        this.cipherIv = cipherIv;
+    }
+
+    public String getCipherMode() {
+        return cipherMode;
+    }
+
+    public void setCipherMode(String cipherMode) {
+        this.cipherMode = cipherMode;
+    }
+
+    public String getSignatureMode() {
+        return signatureMode;
+    }
+
+    public void setSignatureMode(String signatureMode) {
+        this.signatureMode = signatureMode;
+    }
+
+    public String getCipherAlgorithm() {
+        return cipherAlgorithm;
+    }
+
+    public void setCipherAlgorithm(String cipherAlgorithm) {
+        this.cipherAlgorithm = cipherAlgorithm;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public void setKeyId(String keyId) {
+        this.keyId = keyId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
 }
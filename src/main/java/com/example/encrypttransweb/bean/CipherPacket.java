@@ -0,0 +1,108 @@
+package com.example.encrypttransweb.bean;
+
+/**
+ * 二进制形式的密文数据包
+ * 内容与 CipherData 相同，各字段直接保存字节，不经过 Base64
+ * CipherData 是它面向 JSON 的 Base64 视图，二进制接口通过 CipherFrameCodec 编解码
+ */
+public class CipherPacket {
+
+    public CipherPacket(){}
+
+    public CipherPacket(byte[] cipherText, byte[] cipherKey, byte[] cipherSignature, byte[] cipherIv, int cipherMode, String signatureMode) {
+        this.cipherText = cipherText;
+        this.cipherKey = cipherKey;
+        this.cipherSignature = cipherSignature;
+        this.cipherIv = cipherIv;
+        this.cipherMode = cipherMode;
+        this.signatureMode = signatureMode;
+    }
+
+    private byte[] cipherText;
+    private byte[] cipherKey;
+    private byte[] cipherSignature;
+    // AES 初始向量，ECB 模式为空数组
+    private byte[] cipherIv = new byte[0];
+    // AES 工作模式，取值见 SimpleAES.MODE_*
+    private int cipherMode;
+    // 签名摘要方式，为空时按 SHA256 处理
+    private String signatureMode;
+    // 对称加密算法，为空时按 SIMPLE-AES 处理
+    private String cipherAlgorithm;
+    // RSA 密钥 ID，为空时按 rsa 处理
+    private String keyId;
+    // 会话 ID，为空时不是会话消息
+    private String sessionId;
+
+    public byte[] getCipherText() {
+        return cipherText;
+    }
+
+    public void setCipherText(byte[] cipherText) {
+        this.cipherText = cipherText;
+    }
+
+    public byte[] getCipherKey() {
+        return cipherKey;
+    }
+
+    public void setCipherKey(byte[] cipherKey) {
+        this.cipherKey = cipherKey;
+    }
+
+    public byte[] getCipherSignature() {
+        return cipherSignature;
+    }
+
+    public void setCipherSignature(byte[] cipherSignature) {
+        this.cipherSignature = cipherSignature;
+    }
+
+    public byte[] getCipherIv() {
+        return cipherIv;
+    }
+
+    public void setCipherIv(byte[] cipherIv) {
+        this.cipherIv = cipherIv;
+    }
+
+    public int getCipherMode() {
+        return cipherMode;
+    }
+
+    public void setCipherMode(int cipherMode) {
+        this.cipherMode = cipherMode;
+    }
+
+    public String getSignatureMode() {
+        return signatureMode;
+    }
+
+    public void setSignatureMode(String signatureMode) {
+        this.signatureMode = signatureMode;
+    }
+
+    public String getCipherAlgorithm() {
+        return cipherAlgorithm;
+    }
+
+    public void setCipherAlgorithm(String cipherAlgorithm) {
+        this.cipherAlgorithm = cipherAlgorithm;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public void setKeyId(String keyId) {
+        this.keyId = keyId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.encrypttransweb.bean;
+
+/**
+ * 会话握手结果
+ * 会话密钥（AES 密钥 + HMAC 密钥）用 RSA 公钥加密后放在 cipherKey 中，并用 RSA 私钥签名，
+ * 客户端保存该对象，之后的消息只需要带上 sessionId；会话在某个节点上不存在时（节点重启、请求转到其他节点），
+ * 把该对象原样提交给握手接口即可恢复会话，不需要重新协商密钥
+ */
+public class CipherSession {
+
+    public CipherSession(){}
+
+    private String sessionId;
+    // RSA 加密的会话密钥
+    private String cipherKey;
+    // 对 sessionId、cipherKey、expiresAt 的签名
+    private String cipherSignature;
+    // 加密会话密钥使用的 RSA 密钥 ID
+    private String keyId;
+    // 会话过期时间，毫秒时间戳
+    private long expiresAt;
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getCipherKey() {
+        return cipherKey;
+    }
+
+    public void setCipherKey(String cipherKey) {
+        this.cipherKey = cipherKey;
+    }
+
+    public String getCipherSignature() {
+        return cipherSignature;
+    }
+
+    public void setCipherSignature(String cipherSignature) {
+        this.cipherSignature = cipherSignature;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public void setKeyId(String keyId) {
+        this.keyId = keyId;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
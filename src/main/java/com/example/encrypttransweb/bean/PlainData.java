@@ -2,6 +2,8 @@ package com.example.encrypttransweb.bean;
 
 public class PlainData {
     private String plainText;
+    // 握手得到的会话 ID，加密时带上则使用会话密钥，不做 RSA 运算
+    private String sessionId;
 
     public PlainData(){}
 
@@ -16,4 +18,12 @@ public class PlainData {
     public void setPlainText(String plainText) {
         this.plainText = plainText;
     }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
 }
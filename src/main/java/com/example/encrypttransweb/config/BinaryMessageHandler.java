@@ -0,0 +1,157 @@
+package com.example.encrypttransweb.config;
+
+import com.example.encrypttransweb.metrics.CryptoMetrics;
+import com.example.encrypttransweb.service.CipherFrameCodec;
+import com.example.encrypttransweb.service.CryptoService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 原生 WebSocket 二进制接口（/ws-binary），供非浏览器客户端在长连接上使用
+ * 不经过 SockJS、STOMP 和消息代理，也没有 JSON 和 Base64，加解密流程与其它接口相同
+ * <p>
+ * 每个二进制消息是一个请求或响应：
+ *  请求：操作(1) | 请求 ID(8) | 数据
+ *  响应：操作(1) | 请求 ID(8) | 状态(1) | 数据
+ * 操作 1 为加密，数据为原始数据，响应数据为 CipherFrameCodec 格式的密文数据帧；
+ * 操作 2 为解密，数据为密文数据帧，响应数据为原始数据
+ * 状态 0 为成功，1 为失败，失败时响应数据为 UTF-8 编码的错误信息
+ * 请求 ID 由客户端生成，原样返回，用于对应请求和响应
+ * <p>
+ * 同一连接上的请求按收到的顺序依次处理，处理完一个才读取下一个，客户端发送过快时由 TCP 自然限速
+ * 单个请求可以拆成多个 WebSocket 帧发送，服务端拼接后不超过 binary.transport.message-size-limit，超过时断开连接
+ * 响应发送缓慢时，缓存或发送时间超过 binary.transport.send-* 的限制后断开连接
+ * 这些限制与 STOMP 接口的 stomp.transport.* 分开配置，两种接口的客户端和消息大小不同
+ * 由 BinaryWebSocketConfig 注册到 /ws-binary
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BinaryMessageHandler extends BinaryWebSocketHandler {
+
+    public static final int OP_ENCRYPT = 1;
+    public static final int OP_DECRYPT = 2;
+
+    public static final int STATUS_OK = 0;
+    public static final int STATUS_ERROR = 1;
+
+    // 操作和请求 ID 占用的字节数
+    private static final int HEADER_LENGTH = 9;
+
+    // 会话属性：拼接中的请求、用于发送响应的会话
+    private static final String PARTIAL_MESSAGE = "partialMessage";
+    private static final String SENDER = "sender";
+
+    private final CryptoService cryptoService;
+    private final CryptoMetrics metrics;
+    private final int messageSizeLimit;
+    private final int sendTimeLimit;
+    private final int sendBufferSizeLimit;
+
+    public BinaryMessageHandler(CryptoService cryptoService, CryptoMetrics metrics,
+                                @Value("${binary.transport.message-size-limit:1048576}") int messageSizeLimit,
+                                @Value("${binary.transport.send-time-limit:10000}") int sendTimeLimit,
+                                @Value("${binary.transport.send-buffer-size-limit:1048576}") int sendBufferSizeLimit) {
+        this.cryptoService = cryptoService;
+        this.metrics = metrics;
+        this.messageSizeLimit = messageSizeLimit;
+        this.sendTimeLimit = sendTimeLimit;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.getAttributes().put(SENDER, new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, sendBufferSizeLimit));
+    }
+
+    /**
+     * 接收拆分的帧，由本类拼接，不受容器单帧缓冲区大小的限制
+     */
+    @Override
+    public boolean supportsPartialMessages() {
+        return true;
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        byte[] request = assemble(session, message);
+        if (request == null) {
+            return;
+        }
+        if (request.length < HEADER_LENGTH) {
+            session.close(CloseStatus.BAD_DATA.withReason("请求不完整"));
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(request);
+        int op = buffer.get() & 0xFF;
+        long requestId = buffer.getLong();
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+
+        ByteBuffer response;
+        try {
+            byte[] result = handle(op, payload);
+            response = ByteBuffer.allocate(HEADER_LENGTH + 1 + result.length);
+            response.put((byte) op).putLong(requestId).put((byte) STATUS_OK).put(result);
+        } catch (Exception e) {
+            byte[] error = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            response = ByteBuffer.allocate(HEADER_LENGTH + 1 + error.length);
+            response.put((byte) op).putLong(requestId).put((byte) STATUS_ERROR).put(error);
+        }
+        ((WebSocketSession) session.getAttributes().get(SENDER)).sendMessage(new BinaryMessage(response.array()));
+    }
+
+    private byte[] handle(int op, byte[] payload) throws Exception {
+        switch (op) {
+            case OP_ENCRYPT:
+                metrics.recordPayload(CryptoMetrics.WEBSOCKET, "encrypt", payload.length);
+                return metrics.timeRequest(CryptoMetrics.WEBSOCKET, "encrypt", () -> CipherFrameCodec.encode(cryptoService.encryptPacket(payload)));
+            case OP_DECRYPT:
+                metrics.recordPayload(CryptoMetrics.WEBSOCKET, "decrypt", payload.length);
+                return metrics.timeRequest(CryptoMetrics.WEBSOCKET, "decrypt", () -> cryptoService.decrypt(CipherFrameCodec.decode(payload)));
+            default:
+                throw new IllegalArgumentException("不支持的操作: " + op);
+        }
+    }
+
+    /**
+     * 拼接拆分的帧
+     * @return 完整的请求，还没有收到最后一帧时返回 null
+     */
+    private byte[] assemble(WebSocketSession session, BinaryMessage message) throws Exception {
+        ByteArrayOutputStream partial = (ByteArrayOutputStream) session.getAttributes().get(PARTIAL_MESSAGE);
+        if (partial == null && message.isLast()) {
+            return toBytes(message.getPayload());
+        }
+        if (partial == null) {
+            partial = new ByteArrayOutputStream();
+            session.getAttributes().put(PARTIAL_MESSAGE, partial);
+        }
+        if (partial.size() + message.getPayloadLength() > messageSizeLimit) {
+            session.getAttributes().remove(PARTIAL_MESSAGE);
+            session.close(CloseStatus.TOO_BIG_TO_PROCESS);
+            return null;
+        }
+        partial.write(toBytes(message.getPayload()));
+        if (!message.isLast()) {
+            return null;
+        }
+        session.getAttributes().remove(PARTIAL_MESSAGE);
+        return partial.toByteArray();
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.encrypttransweb.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * 原生 WebSocket 二进制接口，不使用 SockJS 和 STOMP，格式见 BinaryMessageHandler
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableWebSocket
+public class BinaryWebSocketConfig implements WebSocketConfigurer {
+
+    private final BinaryMessageHandler binaryMessageHandler;
+
+    public BinaryWebSocketConfig(BinaryMessageHandler binaryMessageHandler) {
+        this.binaryMessageHandler = binaryMessageHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(binaryMessageHandler, "/ws-binary");
+    }
+}
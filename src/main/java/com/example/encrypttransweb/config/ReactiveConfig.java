@@ -0,0 +1,36 @@
+package com.example.encrypttransweb.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * reactive 运行模式配置，使用 --spring.profiles.active=reactive 启用
+ * 服务端改为 Netty，少量事件循环线程处理所有连接，请求体以 DataBuffer 非阻塞读取，不为每个请求占用一个线程
+ * <p>
+ * 加解密是 CPU 密集的计算，不能在事件循环线程上执行，统一交给 cryptoScheduler，
+ * 线程数固定为 crypto.reactive.parallelism（0 表示 CPU 核数），同时进行的加解密数量不超过线程数
+ * <p>
+ * 该模式只提供 /encrypt-api、/decrypt-api，STOMP（/ws）和 /ws-binary 依赖 Servlet 容器，不可用
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+    /**
+     * classpath 中同时有 Tomcat 和 Netty，Spring Boot 默认选择 Tomcat，这里显式指定 Netty
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler cryptoScheduler(@Value("${crypto.reactive.parallelism:0}") int parallelism) {
+        return Schedulers.newParallel("crypto", parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
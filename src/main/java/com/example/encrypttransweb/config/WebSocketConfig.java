@@ -1,23 +1,136 @@
 package com.example.encrypttransweb.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.apache.tomcat.websocket.server.Constants;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP 配置
+ * spring.threads.virtual.enabled=true 并且运行在 Java 21 以上时，clientInboundChannel 和 clientOutboundChannel
+ * 改为每条消息一个虚拟线程处理，不再受默认线程池大小的限制，
+ * 此时同一会话的出站消息通过 preservePublishOrder 保证按发布顺序发送
+ * <p>
+ * 每个连接占用的内存都有上限，慢客户端和恶意客户端不会让服务端内存无限增长：
+ *  入站：单个 WebSocket 消息不超过 stomp.transport.frame-buffer-size，
+ *        更大的 STOMP 帧由客户端拆成多个 WebSocket 消息发送，服务端拼接后不超过 stomp.transport.message-size-limit
+ *  出站：发往一个会话的消息在发送缓慢时先缓存，缓存超过 stomp.transport.send-buffer-size-limit
+ *        或单次发送超过 stomp.transport.send-time-limit 时断开该会话，SockJS 轮询时最多缓存 stomp.sockjs.http-message-cache-size 条
+ *  线程池：未使用虚拟线程时，入站、出站通道的线程数和等待队列长度按配置固定，队列满时拒绝新消息
+ * 因慢客户端被断开的会话数见 WebSocketMetrics
+ */
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final boolean virtualThreads;
+
+    @Value("${stomp.transport.message-size-limit:1048576}")
+    private int messageSizeLimit;
+    @Value("${stomp.transport.frame-buffer-size:16384}")
+    private int frameBufferSize;
+    @Value("${stomp.transport.send-buffer-size-limit:1048576}")
+    private int sendBufferSizeLimit;
+    @Value("${stomp.transport.send-time-limit:10000}")
+    private int sendTimeLimit;
+    @Value("${stomp.transport.time-to-first-message:30000}")
+    private int timeToFirstMessage;
+    @Value("${stomp.sockjs.http-message-cache-size:100}")
+    private int httpMessageCacheSize;
+
+    @Value("${stomp.channel.inbound.pool-size:0}")
+    private int inboundPoolSize;
+    @Value("${stomp.channel.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+    @Value("${stomp.channel.outbound.pool-size:0}")
+    private int outboundPoolSize;
+    @Value("${stomp.channel.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    public WebSocketConfig(Environment environment) {
+        // 与 Spring Boot 判断 Tomcat 是否使用虚拟线程的条件一致，Java 17 上该配置不生效
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // /topic 用于广播（包括页面之间转发数据包的 /topic/transfer），/queue 用于按会话回复（客户端订阅 /user/queue/...）
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        if (virtualThreads) {
+            config.setPreservePublishOrder(true);
+        }
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/ws").withSockJS();
+        registry.addEndpoint("/ws").withSockJS()
+                .setHttpMessageCacheSize(httpMessageCacheSize);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimit)
+                .setTimeToFirstMessage(timeToFirstMessage);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(virtualThreadExecutor("ws-inbound-"));
+        } else {
+            int poolSize = poolSize(inboundPoolSize);
+            registration.taskExecutor().corePoolSize(poolSize).maxPoolSize(poolSize).queueCapacity(inboundQueueCapacity);
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(virtualThreadExecutor("ws-outbound-"));
+        } else {
+            int poolSize = poolSize(outboundPoolSize);
+            registration.taskExecutor().corePoolSize(poolSize).maxPoolSize(poolSize).queueCapacity(outboundQueueCapacity);
+        }
+    }
+
+    /**
+     * Tomcat 为每个连接按该大小预先分配 WebSocket 消息缓冲区，连接数很多时不能设置得太大，
+     * 超过该大小的单个 WebSocket 消息会被拒绝（1009），大的 STOMP 帧需要客户端拆分发送
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> webSocketBufferCustomizer() {
+        return factory -> factory.addContextCustomizers(context -> {
+            context.addParameter(Constants.TEXT_BUFFER_SIZE_SERVLET_CONTEXT_INIT_PARAM, String.valueOf(frameBufferSize));
+            context.addParameter(Constants.BINARY_BUFFER_SIZE_SERVLET_CONTEXT_INIT_PARAM, String.valueOf(frameBufferSize));
+        });
+    }
+
+    /**
+     * 未配置（0）时使用 CPU 核数的两倍，与 Spring 默认的核心线程数一致
+     */
+    private static int poolSize(int configured) {
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    private static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
     }
 }
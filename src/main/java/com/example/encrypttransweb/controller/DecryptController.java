@@ -1,62 +1,98 @@
 package com.example.encrypttransweb.controller;
 
+import com.example.encrypttransweb.bean.CipherBatch;
 import com.example.encrypttransweb.bean.CipherData;
 import com.example.encrypttransweb.bean.PlainData;
-import com.example.encrypttransweb.utils.SimpleAES;
-import com.example.encrypttransweb.utils.SimpleBase64;
-import com.example.encrypttransweb.utils.SimpleRSA;
-import com.example.encrypttransweb.utils.SimpleSHA;
-import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.stereotype.Controller;
+import com.example.encrypttransweb.metrics.CryptoMetrics;
+import com.example.encrypttransweb.service.CipherFrameCodec;
+import com.example.encrypttransweb.service.CryptoService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.math.BigInteger;
-import java.util.Arrays;
-
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * 这是预留的解密 Web API 接口类
  * 和 MessageController 里面的解密方法内容一样
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/decrypt-api")
 public class DecryptController {
+
+    private final CryptoService cryptoService;
+    private final CryptoMetrics metrics;
+
+    public DecryptController(CryptoService cryptoService, CryptoMetrics metrics) {
+        this.cryptoService = cryptoService;
+        this.metrics = metrics;
+    }
+
     @PostMapping("/decrypt")
     public PlainData decrypted(@RequestBody CipherData cipherData) {
         try {
-            // 1. 接收并拆解密文数据包
-            byte[] cipherText = SimpleBase64.base64ToByte(cipherData.getCipherText());
-            byte[] cipherKey = SimpleBase64.base64ToByte(cipherData.getCipherKey());
-            byte[] cipherSignature = SimpleBase64.base64ToByte(cipherData.getCipherSignature());
-
-            System.out.println(Arrays.toString(cipherText));
-            System.out.println(Arrays.toString(cipherKey));
-
-            // 2. 验证签名完整性
-            byte[] merge = new byte[cipherText.length + cipherKey.length];
-            System.arraycopy(cipherText, 0, merge, 0, cipherText.length);
-            System.arraycopy(cipherKey, 0, merge, cipherText.length, cipherKey.length);
-            BigInteger[] publicKey = SimpleRSA.readPublicKey();
-            byte[] signature = SimpleRSA.decrypt(cipherSignature, publicKey[0], publicKey[1]);
-            if (!Arrays.equals(signature, SimpleSHA.sha256(merge))){
-                throw new Exception("签名校验失败");
-            }
-            // 3. 解密 AES 密钥
-            BigInteger[] privateKey = SimpleRSA.readPrivateKey();
-            byte[] plainKey = SimpleRSA.decrypt(cipherKey, privateKey[0], privateKey[1]);
-            System.out.println(Arrays.toString(plainKey));
-            // 4. 解密并还原源数据
-            byte[] decryptedText = SimpleAES.decrypt(cipherText, plainKey);
-            System.out.println("Decrypted text: " + Arrays.toString(decryptedText));
-            System.out.println("Decrypted text (as string): " + new String(decryptedText).trim());
+            metrics.recordPayload(CryptoMetrics.REST, "decrypt", cipherData.getCipherText() == null ? 0 : cipherData.getCipherText().length());
+            byte[] decryptedText = metrics.timeRequest(CryptoMetrics.REST, "decrypt", () -> cryptoService.decrypt(cipherData));
             return new PlainData(new String(decryptedText).trim());
         } catch (Exception e) {
             e.printStackTrace();
             return new PlainData(e.getMessage());
         }
     }
+
+    /**
+     * 二进制解密，请求头 Content-Type 为 application/octet-stream 时使用
+     * 请求体为 CipherFrameCodec 格式的二进制帧，响应为原始数据
+     * 解密失败时返回 400，响应体为错误信息
+     */
+    @PostMapping(value = "/decrypt", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> decryptedBinary(@RequestBody byte[] frame) {
+        try {
+            metrics.recordPayload(CryptoMetrics.REST, "decrypt-binary", frame.length);
+            return ResponseEntity.ok(metrics.timeRequest(CryptoMetrics.REST, "decrypt-binary", () -> cryptoService.decrypt(CipherFrameCodec.decode(frame))));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().body(String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 批量解密，请求体为 /encrypt-api/encrypt-batch 返回的批量数据包
+     * 整批只验一次签名、只做一次 RSA 解密，返回结果与 items 顺序一致
+     */
+    @PostMapping("/decrypt-batch")
+    public List<PlainData> decryptedBatch(@RequestBody CipherBatch batch) {
+        try {
+            metrics.recordPayload(CryptoMetrics.REST, "decrypt-batch", batch.getItems().stream().mapToLong(item -> item.getCipherText() == null ? 0 : item.getCipherText().length()).sum());
+            return metrics.timeRequest(CryptoMetrics.REST, "decrypt-batch", () -> cryptoService.decryptBatch(batch)).stream().map(decryptedText -> new PlainData(new String(decryptedText).trim())).toList();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return List.of(new PlainData(e.getMessage()));
+        }
+    }
+
+    /**
+     * 流式解密，适用于大数据量
+     * 请求体为 /encrypt-api/encrypt-stream 返回的数据流，边读边解密，原始数据直接写入响应
+     * 签名在数据流末尾才能校验，校验失败时中断响应，客户端会收到不完整的响应，需要丢弃已收到的数据
+     */
+    @PostMapping("/decrypt-stream")
+    public void decryptStream(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        if (request.getContentLengthLong() > 0) {
+            metrics.recordPayload(CryptoMetrics.REST, "decrypt-stream", request.getContentLengthLong());
+        }
+        metrics.timeRequest(CryptoMetrics.REST, "decrypt-stream", () -> {
+            cryptoService.decryptStream(request.getInputStream(), response.getOutputStream());
+            return null;
+        });
+    }
 }
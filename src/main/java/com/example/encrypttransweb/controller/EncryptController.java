@@ -1,53 +1,112 @@
 package com.example.encrypttransweb.controller;
 
+import com.example.encrypttransweb.bean.CipherBatch;
 import com.example.encrypttransweb.bean.CipherData;
+import com.example.encrypttransweb.bean.CipherSession;
 import com.example.encrypttransweb.bean.PlainData;
-import com.example.encrypttransweb.utils.SimpleAES;
-import com.example.encrypttransweb.utils.SimpleBase64;
-import com.example.encrypttransweb.utils.SimpleRSA;
-import com.example.encrypttransweb.utils.SimpleSHA;
-import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.stereotype.Controller;
+import com.example.encrypttransweb.metrics.CryptoMetrics;
+import com.example.encrypttransweb.service.CipherFrameCodec;
+import com.example.encrypttransweb.service.CryptoService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * 这是预留的加密 Web API 接口类
  * 和 MessageController 里面的加密方法内容一样
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/encrypt-api")
 public class EncryptController {
 
+    private final CryptoService cryptoService;
+    private final CryptoMetrics metrics;
+
+    public EncryptController(CryptoService cryptoService, CryptoMetrics metrics) {
+        this.cryptoService = cryptoService;
+        this.metrics = metrics;
+    }
+
     @PostMapping("/encrypt")
     public CipherData encrypted(@RequestBody PlainData plainData) {
         try {
-            // 1. 接收原始数据，AES 加密
-            String plainText = plainData.getPlainText();
-            byte[] aesKey = SimpleAES.generateRandomKey();
-            byte[] cipherText = SimpleAES.encrypt(plainText.getBytes(), aesKey);
-            // 2. RSA 加密 AES Key
-            BigInteger[] publicKey = SimpleRSA.readPublicKey();
-            byte[] cipherKey = SimpleRSA.encrypt(aesKey, publicKey[0], publicKey[1]);
-            // 3. 合并两个密文，生成数字签名
-            byte[] merge = new byte[cipherText.length + cipherKey.length];
-            System.arraycopy(cipherText, 0, merge, 0, cipherText.length);
-            System.arraycopy(cipherKey, 0, merge, cipherText.length, cipherKey.length);
-            byte[] signature = SimpleSHA.sha256(merge);
-            BigInteger[] privateKey = SimpleRSA.readPrivateKey();
-            byte[] cipherSignature = SimpleRSA.encrypt(signature, privateKey[0], privateKey[1]);
-            // 合并数据
-            return new CipherData(
-                    SimpleBase64.byteToBase64(cipherText),
-                    SimpleBase64.byteToBase64(cipherKey),
-                    SimpleBase64.byteToBase64(cipherSignature)
-            );
-
+            byte[] plainText = plainData.getPlainText().getBytes();
+            metrics.recordPayload(CryptoMetrics.REST, "encrypt", plainText.length);
+            return metrics.timeRequest(CryptoMetrics.REST, "encrypt", () -> cryptoService.encrypt(plainText, plainData.getSessionId()));
         } catch (Exception e) {
             e.printStackTrace();
         }
         return new CipherData();
     }
+
+    /**
+     * 会话握手，请求体为空时新建会话，请求体为之前的握手结果时恢复会话
+     * 之后 /encrypt 请求带上 sessionId 即使用会话密钥，不再做 RSA 运算
+     */
+    @PostMapping("/session")
+    public CipherSession session(@RequestBody(required = false) CipherSession token) {
+        try {
+            return metrics.timeRequest(CryptoMetrics.REST, "session", () -> cryptoService.openSession(token));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return new CipherSession();
+    }
+
+    /**
+     * 二进制加密，请求头 Content-Type 为 application/octet-stream 时使用
+     * 请求体为原始数据，响应为 CipherFrameCodec 格式的二进制帧，不经过 JSON 和 Base64
+     * 请求参数错误时返回 400，其他加密失败返回 500，响应体为错误信息
+     */
+    @PostMapping(value = "/encrypt", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> encryptedBinary(@RequestBody byte[] plainText) {
+        try {
+            metrics.recordPayload(CryptoMetrics.REST, "encrypt-binary", plainText.length);
+            return ResponseEntity.ok(metrics.timeRequest(CryptoMetrics.REST, "encrypt-binary", () -> CipherFrameCodec.encode(cryptoService.encryptPacket(plainText))));
+        } catch (Exception e) {
+            e.printStackTrace();
+            HttpStatus status = e instanceof IllegalArgumentException ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status).body(String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 批量加密，适用于同一来源的大量小消息
+     * 整批共用一个 AES Key，只做一次 RSA 加密和一次签名，返回的 items 与请求顺序一致
+     */
+    @PostMapping("/encrypt-batch")
+    public CipherBatch encryptedBatch(@RequestBody List<PlainData> plainDataList) {
+        try {
+            List<byte[]> plainTexts = plainDataList.stream().map(plainData -> plainData.getPlainText().getBytes()).toList();
+            metrics.recordPayload(CryptoMetrics.REST, "encrypt-batch", plainTexts.stream().mapToLong(plainText -> plainText.length).sum());
+            return metrics.timeRequest(CryptoMetrics.REST, "encrypt-batch", () -> cryptoService.encryptBatch(plainTexts));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return new CipherBatch();
+    }
+
+    /**
+     * 流式加密，适用于大数据量
+     * 请求体为原始数据，边读边加密，密文直接写入响应，不在内存中缓存完整数据
+     */
+    @PostMapping("/encrypt-stream")
+    public void encryptStream(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        if (request.getContentLengthLong() > 0) {
+            metrics.recordPayload(CryptoMetrics.REST, "encrypt-stream", request.getContentLengthLong());
+        }
+        metrics.timeRequest(CryptoMetrics.REST, "encrypt-stream", () -> {
+            cryptoService.encryptStream(request.getInputStream(), response.getOutputStream());
+            return null;
+        });
+    }
 }
@@ -2,86 +2,95 @@ package com.example.encrypttransweb.controller;
 
 
 import com.example.encrypttransweb.bean.CipherData;
+import com.example.encrypttransweb.bean.CipherSession;
 import com.example.encrypttransweb.bean.PlainData;
-import com.example.encrypttransweb.utils.SimpleAES;
-import com.example.encrypttransweb.utils.SimpleBase64;
-import com.example.encrypttransweb.utils.SimpleRSA;
-import com.example.encrypttransweb.utils.SimpleSHA;
+import com.example.encrypttransweb.metrics.CryptoMetrics;
+import com.example.encrypttransweb.service.CryptoService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
-import java.math.BigInteger;
-import java.util.Arrays;
-
 /**
  * 这是专门为 Socket 协议定义的加解密方法，代码逻辑和 Web 接口是一样的，只是为了迎合 WebSocket 通信
+ * <p>
+ * 结果只回复给发出请求的会话，客户端订阅 /user/queue/encrypted、/user/queue/decrypted 接收，
+ * 每条消息的出站流量与连接的客户端数量无关
+ * stomp.reply.broadcast=true 时结果同时广播到 /topic/encrypted、/topic/decrypted，兼容只订阅广播的旧客户端
+ * <p>
+ * 持续发送大量消息的客户端可以先发送 /app/session 握手，之后的加密消息带上 sessionId，每条消息不再做 RSA 运算
  */
 @Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class MessageController {
+
+    private final CryptoService cryptoService;
+    private final CryptoMetrics metrics;
+    private final SimpMessagingTemplate messagingTemplate;
+    // 是否同时广播到 /topic
+    private final boolean broadcast;
+
+    public MessageController(CryptoService cryptoService, CryptoMetrics metrics, SimpMessagingTemplate messagingTemplate,
+                             @Value("${stomp.reply.broadcast:false}") boolean broadcast) {
+        this.cryptoService = cryptoService;
+        this.metrics = metrics;
+        this.messagingTemplate = messagingTemplate;
+        this.broadcast = broadcast;
+    }
+
     @MessageMapping("/encrypt")
-    @SendTo("/topic/encrypted")
+    @SendToUser(destinations = "/queue/encrypted", broadcast = false)
     public CipherData encrypt(PlainData plainData) {
+        CipherData cipherData = new CipherData();
+        try {
+            byte[] plainText = plainData.getPlainText().getBytes();
+            metrics.recordPayload(CryptoMetrics.STOMP, "encrypt", plainText.length);
+            cipherData = metrics.timeRequest(CryptoMetrics.STOMP, "encrypt", () -> cryptoService.encrypt(plainText, plainData.getSessionId()));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return broadcast("/topic/encrypted", cipherData);
+    }
+
+    /**
+     * 会话握手，消息体为 {} 时新建会话，为之前的握手结果时恢复会话，结果回复到 /user/queue/session
+     * 之后 /app/encrypt 消息带上 sessionId 即使用会话密钥，不再做 RSA 运算
+     */
+    @MessageMapping("/session")
+    @SendToUser(destinations = "/queue/session", broadcast = false)
+    public CipherSession session(CipherSession token) {
         try {
-            // 1. 接收原始数据，AES 加密
-            String plainText = plainData.getPlainText();
-            byte[] aesKey = SimpleAES.generateRandomKey();
-            byte[] cipherText = SimpleAES.encrypt(plainText.getBytes(), aesKey);
-            // 2. RSA 加密 AES Key
-            BigInteger[] publicKey = SimpleRSA.readPublicKey();
-            byte[] cipherKey = SimpleRSA.encrypt(aesKey, publicKey[0], publicKey[1]);
-            // 3. 合并两个密文，生成数字签名
-            byte[] merge = new byte[cipherText.length + cipherKey.length];
-            System.arraycopy(cipherText, 0, merge, 0, cipherText.length);
-            System.arraycopy(cipherKey, 0, merge, cipherText.length, cipherKey.length);
-            byte[] signature = SimpleSHA.sha256(merge);
-            BigInteger[] privateKey = SimpleRSA.readPrivateKey();
-            byte[] cipherSignature = SimpleRSA.encrypt(signature, privateKey[0], privateKey[1]);
-            // 合并数据
-            return new CipherData(
-                    SimpleBase64.byteToBase64(cipherText),
-                    SimpleBase64.byteToBase64(cipherKey),
-                    SimpleBase64.byteToBase64(cipherSignature)
-            );
+            return metrics.timeRequest(CryptoMetrics.STOMP, "session", () -> cryptoService.openSession(token));
         } catch (Exception e) {
             e.printStackTrace();
         }
-        return new CipherData();
+        return new CipherSession();
     }
 
     @MessageMapping("/decrypt")
-    @SendTo("/topic/decrypted")
+    @SendToUser(destinations = "/queue/decrypted", broadcast = false)
     public PlainData decrypt(CipherData cipherData) {
+        PlainData plainData;
         try {
-            // 1. 接收并拆解密文数据包
-            byte[] cipherText = SimpleBase64.base64ToByte(cipherData.getCipherText());
-            byte[] cipherKey = SimpleBase64.base64ToByte(cipherData.getCipherKey());
-            byte[] cipherSignature = SimpleBase64.base64ToByte(cipherData.getCipherSignature());
-
-            System.out.println(Arrays.toString(cipherText));
-            System.out.println(Arrays.toString(cipherKey));
-
-            // 2. 验证签名完整性
-            byte[] merge = new byte[cipherText.length + cipherKey.length];
-            System.arraycopy(cipherText, 0, merge, 0, cipherText.length);
-            System.arraycopy(cipherKey, 0, merge, cipherText.length, cipherKey.length);
-            BigInteger[] publicKey = SimpleRSA.readPublicKey();
-            byte[] signature = SimpleRSA.decrypt(cipherSignature, publicKey[0], publicKey[1]);
-            if (!Arrays.equals(signature, SimpleSHA.sha256(merge))){
-                throw new Exception("签名校验失败");
-            }
-            // 3. 解密 AES 密钥
-            BigInteger[] privateKey = SimpleRSA.readPrivateKey();
-            byte[] plainKey = SimpleRSA.decrypt(cipherKey, privateKey[0], privateKey[1]);
-            System.out.println(Arrays.toString(plainKey));
-            // 4. 解密并还原源数据
-            byte[] decryptedText = SimpleAES.decrypt(cipherText, plainKey);
-            System.out.println("Decrypted text: " + Arrays.toString(decryptedText));
-            System.out.println("Decrypted text (as string): " + new String(decryptedText).trim());
-            return new PlainData(new String(decryptedText).trim());
+            metrics.recordPayload(CryptoMetrics.STOMP, "decrypt", cipherData.getCipherText() == null ? 0 : cipherData.getCipherText().length());
+            byte[] decryptedText = metrics.timeRequest(CryptoMetrics.STOMP, "decrypt", () -> cryptoService.decrypt(cipherData));
+            plainData = new PlainData(new String(decryptedText).trim());
         } catch (Exception e) {
             e.printStackTrace();
-            return new PlainData(e.getMessage());
+            plainData = new PlainData(e.getMessage());
+        }
+        return broadcast("/topic/decrypted", plainData);
+    }
+
+    /**
+     * 开启广播时把结果同时发到 /topic，返回值仍按 @SendToUser 回复给发出请求的会话
+     */
+    private <T> T broadcast(String destination, T payload) {
+        if (broadcast) {
+            messagingTemplate.convertAndSend(destination, payload);
         }
+        return payload;
     }
 }
@@ -0,0 +1,60 @@
+package com.example.encrypttransweb.controller;
+
+import com.example.encrypttransweb.metrics.CryptoMetrics;
+import com.example.encrypttransweb.service.CryptoService.StreamProcessor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.Callable;
+
+/**
+ * reactive 流式加解密，请求体不转换为 InputStream
+ * 请求体的 DataBuffer 到达后逐个在 cryptoScheduler 上交给 StreamProcessor，处理结果直接作为响应的 DataBuffer 写出，
+ * 请求体结束后写出 finish 的结果；等待数据时不占用任何线程
+ * 最多预取 prefetch 个 DataBuffer，响应写得慢时不再向客户端请求数据，内存占用有上限
+ * 各块在 cryptoScheduler 的不同线程上处理，每块都绑定 transport，请求总耗时在数据流结束时记录
+ */
+final class ReactiveCryptoStream {
+
+    private ReactiveCryptoStream() {
+    }
+
+    /**
+     * @param body 请求体
+     * @param open 创建处理过程，其中的 RSA 运算也在 cryptoScheduler 上执行
+     * @param transport 请求来源
+     * @param operation 操作名称
+     * @return 响应体，处理失败时以异常结束
+     */
+    static Flux<DataBuffer> process(Flux<DataBuffer> body, Callable<StreamProcessor> open, String transport, String operation,
+                                    CryptoMetrics metrics, Scheduler cryptoScheduler, int prefetch, DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.fromCallable(() -> metrics.inTransport(transport, open))
+                    .subscribeOn(cryptoScheduler)
+                    .flatMapMany(processor -> Flux.concat(
+                            body.publishOn(cryptoScheduler, prefetch).<byte[]>handle((buffer, sink) -> {
+                                try {
+                                    byte[] data = new byte[buffer.readableByteCount()];
+                                    buffer.read(data);
+                                    sink.next(metrics.inTransport(transport, () -> processor.update(data, 0, data.length)));
+                                } catch (Exception e) {
+                                    sink.error(e);
+                                } finally {
+                                    DataBufferUtils.release(buffer);
+                                }
+                            }).doOnDiscard(DataBuffer.class, DataBufferUtils::release),
+                            Mono.fromCallable(() -> metrics.inTransport(transport, processor::finish)).subscribeOn(cryptoScheduler)))
+                    .filter(bytes -> bytes.length > 0)
+                    .map(bufferFactory::wrap)
+                    .doOnError(e -> metrics.recordFailure(transport, operation, e))
+                    .doFinally(signal -> metrics.recordRequest(transport, operation,
+                            signal == SignalType.ON_COMPLETE, System.nanoTime() - start));
+        });
+    }
+}
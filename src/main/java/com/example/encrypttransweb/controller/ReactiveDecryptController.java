@@ -0,0 +1,110 @@
+package com.example.encrypttransweb.controller;
+
+import com.example.encrypttransweb.bean.CipherBatch;
+import com.example.encrypttransweb.bean.CipherData;
+import com.example.encrypttransweb.bean.PlainData;
+import com.example.encrypttransweb.metrics.CryptoMetrics;
+import com.example.encrypttransweb.service.CipherFrameCodec;
+import com.example.encrypttransweb.service.CryptoService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * reactive 运行模式下的解密 Web API 接口类，接口地址、请求和响应格式与 DecryptController 一致
+ * 请求体在 Netty 事件循环上非阻塞读取，读取完成后解密交给 cryptoScheduler 执行
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/decrypt-api")
+public class ReactiveDecryptController {
+
+    // 流式解密时最多预取的请求体 DataBuffer 数量，响应写得慢时不再读取请求体
+    private static final int STREAM_DEMAND = 16;
+
+    private final CryptoService cryptoService;
+    private final CryptoMetrics metrics;
+    private final Scheduler cryptoScheduler;
+
+    public ReactiveDecryptController(CryptoService cryptoService, CryptoMetrics metrics, Scheduler cryptoScheduler) {
+        this.cryptoService = cryptoService;
+        this.metrics = metrics;
+        this.cryptoScheduler = cryptoScheduler;
+    }
+
+    @PostMapping("/decrypt")
+    public Mono<PlainData> decrypted(@RequestBody Mono<CipherData> body) {
+        return body.publishOn(cryptoScheduler).map(cipherData -> {
+            try {
+                metrics.recordPayload(CryptoMetrics.REST, "decrypt", cipherData.getCipherText() == null ? 0 : cipherData.getCipherText().length());
+                byte[] decryptedText = metrics.timeRequest(CryptoMetrics.REST, "decrypt", () -> cryptoService.decrypt(cipherData));
+                return new PlainData(new String(decryptedText).trim());
+            } catch (Exception e) {
+                e.printStackTrace();
+                return new PlainData(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 二进制解密，请求头 Content-Type 为 application/octet-stream 时使用
+     * 请求体为 CipherFrameCodec 格式的二进制帧，响应为原始数据
+     * 解密失败时返回 400，响应体为错误信息
+     */
+    @PostMapping(value = "/decrypt", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Mono<ResponseEntity<byte[]>> decryptedBinary(@RequestBody Mono<byte[]> body) {
+        return body.publishOn(cryptoScheduler).map(frame -> {
+            try {
+                metrics.recordPayload(CryptoMetrics.REST, "decrypt-binary", frame.length);
+                return ResponseEntity.ok(metrics.timeRequest(CryptoMetrics.REST, "decrypt-binary", () -> cryptoService.decrypt(CipherFrameCodec.decode(frame))));
+            } catch (Exception e) {
+                e.printStackTrace();
+                return ResponseEntity.badRequest().body(String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    /**
+     * 批量解密，请求体为 /encrypt-api/encrypt-batch 返回的批量数据包
+     * 整批只验一次签名、只做一次 RSA 解密，返回结果与 items 顺序一致
+     */
+    @PostMapping("/decrypt-batch")
+    public Mono<List<PlainData>> decryptedBatch(@RequestBody Mono<CipherBatch> body) {
+        return body.publishOn(cryptoScheduler).map(batch -> {
+            try {
+                metrics.recordPayload(CryptoMetrics.REST, "decrypt-batch", batch.getItems().stream().mapToLong(item -> item.getCipherText() == null ? 0 : item.getCipherText().length()).sum());
+                return metrics.timeRequest(CryptoMetrics.REST, "decrypt-batch", () -> cryptoService.decryptBatch(batch)).stream().map(decryptedText -> new PlainData(new String(decryptedText).trim())).toList();
+            } catch (Exception e) {
+                e.printStackTrace();
+                return List.of(new PlainData(e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * 流式解密，适用于大数据量
+     * 请求体为 /encrypt-api/encrypt-stream 返回的数据流，边读边解密，原始数据直接写入响应
+     * 签名在数据流末尾才能校验，校验失败时中断响应，客户端会收到不完整的响应，需要丢弃已收到的数据
+     * 请求体的每个 DataBuffer 到达后在 cryptoScheduler 上解密并写出，不阻塞线程等待数据，见 ReactiveCryptoStream
+     */
+    @PostMapping("/decrypt-stream")
+    public Mono<Void> decryptStream(ServerHttpRequest request, ServerHttpResponse response) {
+        response.getHeaders().setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        if (request.getHeaders().getContentLength() > 0) {
+            metrics.recordPayload(CryptoMetrics.REST, "decrypt-stream", request.getHeaders().getContentLength());
+        }
+        return response.writeWith(ReactiveCryptoStream.process(request.getBody(), cryptoService::newStreamDecryptor, CryptoMetrics.REST, "decrypt-stream",
+                metrics, cryptoScheduler, STREAM_DEMAND, response.bufferFactory()));
+    }
+}
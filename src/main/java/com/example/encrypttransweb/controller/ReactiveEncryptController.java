@@ -0,0 +1,130 @@
+package com.example.encrypttransweb.controller;
+
+import com.example.encrypttransweb.bean.CipherBatch;
+import com.example.encrypttransweb.bean.CipherData;
+import com.example.encrypttransweb.bean.CipherSession;
+import com.example.encrypttransweb.bean.PlainData;
+import com.example.encrypttransweb.metrics.CryptoMetrics;
+import com.example.encrypttransweb.service.CipherFrameCodec;
+import com.example.encrypttransweb.service.CryptoService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * reactive 运行模式下的加密 Web API 接口类，接口地址、请求和响应格式与 EncryptController 一致
+ * 请求体在 Netty 事件循环上非阻塞读取，读取完成后加密交给 cryptoScheduler 执行
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/encrypt-api")
+public class ReactiveEncryptController {
+
+    // 流式加密时最多预取的请求体 DataBuffer 数量，响应写得慢时不再读取请求体
+    private static final int STREAM_DEMAND = 16;
+
+    private final CryptoService cryptoService;
+    private final CryptoMetrics metrics;
+    private final Scheduler cryptoScheduler;
+
+    public ReactiveEncryptController(CryptoService cryptoService, CryptoMetrics metrics, Scheduler cryptoScheduler) {
+        this.cryptoService = cryptoService;
+        this.metrics = metrics;
+        this.cryptoScheduler = cryptoScheduler;
+    }
+
+    @PostMapping("/encrypt")
+    public Mono<CipherData> encrypted(@RequestBody Mono<PlainData> body) {
+        return body.publishOn(cryptoScheduler).map(plainData -> {
+            try {
+                byte[] plainText = plainData.getPlainText().getBytes();
+                metrics.recordPayload(CryptoMetrics.REST, "encrypt", plainText.length);
+                return metrics.timeRequest(CryptoMetrics.REST, "encrypt", () -> cryptoService.encrypt(plainText, plainData.getSessionId()));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return new CipherData();
+        });
+    }
+
+    /**
+     * 会话握手，请求体为空时新建会话，请求体为之前的握手结果时恢复会话
+     * 之后 /encrypt 请求带上 sessionId 即使用会话密钥，不再做 RSA 运算
+     */
+    @PostMapping("/session")
+    public Mono<CipherSession> session(@RequestBody(required = false) Mono<CipherSession> body) {
+        return body.map(Optional::of).defaultIfEmpty(Optional.empty()).publishOn(cryptoScheduler).map(token -> {
+            try {
+                return metrics.timeRequest(CryptoMetrics.REST, "session", () -> cryptoService.openSession(token.orElse(null)));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return new CipherSession();
+        });
+    }
+
+    /**
+     * 二进制加密，请求头 Content-Type 为 application/octet-stream 时使用
+     * 请求体为原始数据，响应为 CipherFrameCodec 格式的二进制帧，不经过 JSON 和 Base64
+     * 请求参数错误时返回 400，其他加密失败返回 500，响应体为错误信息
+     */
+    @PostMapping(value = "/encrypt", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Mono<ResponseEntity<byte[]>> encryptedBinary(@RequestBody Mono<byte[]> body) {
+        return body.publishOn(cryptoScheduler).map(plainText -> {
+            try {
+                metrics.recordPayload(CryptoMetrics.REST, "encrypt-binary", plainText.length);
+                return ResponseEntity.ok(metrics.timeRequest(CryptoMetrics.REST, "encrypt-binary", () -> CipherFrameCodec.encode(cryptoService.encryptPacket(plainText))));
+            } catch (Exception e) {
+                e.printStackTrace();
+                HttpStatus status = e instanceof IllegalArgumentException ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+                return ResponseEntity.status(status).body(String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    /**
+     * 批量加密，适用于同一来源的大量小消息
+     * 整批共用一个 AES Key，只做一次 RSA 加密和一次签名，返回的 items 与请求顺序一致
+     */
+    @PostMapping("/encrypt-batch")
+    public Mono<CipherBatch> encryptedBatch(@RequestBody Mono<List<PlainData>> body) {
+        return body.publishOn(cryptoScheduler).map(plainDataList -> {
+            try {
+                List<byte[]> plainTexts = plainDataList.stream().map(plainData -> plainData.getPlainText().getBytes()).toList();
+                metrics.recordPayload(CryptoMetrics.REST, "encrypt-batch", plainTexts.stream().mapToLong(plainText -> plainText.length).sum());
+                return metrics.timeRequest(CryptoMetrics.REST, "encrypt-batch", () -> cryptoService.encryptBatch(plainTexts));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return new CipherBatch();
+        });
+    }
+
+    /**
+     * 流式加密，适用于大数据量
+     * 请求体为原始数据，边读边加密，密文直接写入响应，不在内存中缓存完整数据
+     * 请求体的每个 DataBuffer 到达后在 cryptoScheduler 上加密并写出，不阻塞线程等待数据，见 ReactiveCryptoStream
+     */
+    @PostMapping("/encrypt-stream")
+    public Mono<Void> encryptStream(ServerHttpRequest request, ServerHttpResponse response) {
+        response.getHeaders().setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        if (request.getHeaders().getContentLength() > 0) {
+            metrics.recordPayload(CryptoMetrics.REST, "encrypt-stream", request.getHeaders().getContentLength());
+        }
+        return response.writeWith(ReactiveCryptoStream.process(request.getBody(), cryptoService::newStreamEncryptor, CryptoMetrics.REST, "encrypt-stream",
+                metrics, cryptoScheduler, STREAM_DEMAND, response.bufferFactory()));
+    }
+}
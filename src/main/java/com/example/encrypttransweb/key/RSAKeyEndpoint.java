@@ -0,0 +1,46 @@
+package com.example.encrypttransweb.key;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RSA 密钥环状态端点 /actuator/rsakey，只读
+ *  GET 查看激活的密钥、密钥环中的所有密钥及其退役时间、生成状态
+ * 轮换密钥使用单独的 RSAKeyRotationEndpoint，默认不通过 Web 暴露
+ */
+@Component
+@Endpoint(id = "rsakey")
+public class RSAKeyEndpoint {
+
+    private final RSAKeyHolder keyHolder;
+
+    public RSAKeyEndpoint(RSAKeyHolder keyHolder) {
+        this.keyHolder = keyHolder;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ready", keyHolder.isReady());
+        status.put("generating", keyHolder.isGenerating());
+        status.put("activeKeyId", keyHolder.isReady() ? keyHolder.getActiveKey().id() : null);
+        status.put("keySize", keyHolder.getCurrentKeySize());
+        status.put("configuredKeySize", keyHolder.getKeySize());
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (RSAKeyHolder.KeyVersion key : keyHolder.getKeys()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", key.id());
+            item.put("keySize", key.keySize());
+            item.put("retireAt", keyHolder.getRetireAt(key.id()));
+            keys.add(item);
+        }
+        status.put("keys", keys);
+        return status;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.encrypttransweb.key;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * RSA 公私钥健康检查，健康检查名称为 rsaKey，加入 readiness 分组
+ * 启动时密钥文件不存在、公私钥还在后台生成时返回 OUT_OF_SERVICE，
+ * /actuator/health/readiness 返回 503，负载均衡暂不转发请求，生成完成后恢复 UP
+ */
+@Component("rsaKeyHealthIndicator")
+public class RSAKeyHealthIndicator implements HealthIndicator {
+
+    private final RSAKeyHolder keyHolder;
+
+    public RSAKeyHealthIndicator(RSAKeyHolder keyHolder) {
+        this.keyHolder = keyHolder;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = keyHolder.isReady() ? Health.up().withDetail("activeKeyId", keyHolder.getActiveKey().id()) : Health.outOfService();
+        return builder
+                .withDetail("keys", keyHolder.getKeys().size())
+                .withDetail("keySize", keyHolder.getCurrentKeySize())
+                .withDetail("generating", keyHolder.isGenerating())
+                .build();
+    }
+}
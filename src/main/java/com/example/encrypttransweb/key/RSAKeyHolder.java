@@ -0,0 +1,525 @@
+package com.example.encrypttransweb.key;
+
+import com.example.encrypttransweb.utils.RSAPrivateKey;
+import com.example.encrypttransweb.utils.RSAPublicKey;
+import com.example.encrypttransweb.utils.SimpleRSA;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * RSA 密钥环，内存中同时保存多个版本的公私钥，按密钥 ID 查找
+ * 加密总是使用当前激活的密钥，数据包中记录密钥 ID（keyId），解密时按 keyId 找到加密时使用的密钥，
+ * 轮换密钥后之前的密文在旧密钥退役前仍能解密
+ * <p>
+ * 密钥目录 keys 中每个版本一对文件 &lt;id&gt;.public.key / &lt;id&gt;.private.key，
+ * 旧版本的 rsa.public.key / rsa.private.key 即 ID 为 rsa 的密钥，没有 keyId 的旧数据包使用该密钥
+ * keyring.properties 记录激活的密钥和旧密钥的退役时间：
+ *  active=20261018000712-3fa2
+ *  retire.rsa=2026-10-25T00:07:12Z
+ * <p>
+ * 多个节点共用同一个密钥目录，各自监听目录变更并重新加载，不需要同时重启：
+ *  轮换时先写入新密钥文件，再修改 keyring.properties 激活新密钥，并给原来的激活密钥设置退役时间
+ *  （当前时间 + crypto.keyring.retention）；其他节点通过目录监听加载新密钥
+ *  keyring.properties 的读取、修改、写回在 keyring.lock 的文件锁内进行，多个节点同时轮换时不会互相覆盖，
+ *  写回时先写临时文件再原子替换，读取的一方不会读到写了一半的文件
+ *  监听事件还没到达时收到带新 keyId 的数据包，交给后台线程重新加载一次，全局每秒最多一次，该请求直接拒绝，
+ *  客户端重试时使用新加载的密钥；请求线程不读磁盘，也不争用 reload 的锁，伪造或已退役的 keyId 也一样
+ *  每隔 crypto.keyring.retire-check-interval 检查一次，超过退役时间的密钥从密钥环中移除并删除文件
+ * <p>
+ * 启动时只读取已有的密钥文件，重启后之前的密文仍能解密，启动也不用等待生成密钥
+ * 密钥目录中没有可用的密钥时，在后台线程生成 crypto.rsa.key-size 位的公私钥，
+ * 生成完成前 isReady() 为 false，RSAKeyHealthIndicator 据此让 readiness 探针返回未就绪
+ * 也可以通过 /actuator/rsakeyrotate 手动轮换（默认不暴露），生成期间继续使用原有密钥
+ */
+@Component
+public class RSAKeyHolder {
+
+    // 密钥环的生成、轮换、退役和重新加载都在后台线程进行，通过日志而不是标准输出记录
+    private static final Logger log = LoggerFactory.getLogger(RSAKeyHolder.class);
+
+    /**
+     * 支持的密钥长度
+     */
+    public static final Set<Integer> KEY_SIZES = Set.of(1024, 2048, 3072, 4096);
+
+    /**
+     * 旧版本单一密钥的 ID，对应 rsa.public.key / rsa.private.key
+     */
+    public static final String LEGACY_KEY_ID = "rsa";
+
+    private static final String PUBLIC_KEY_SUFFIX = ".public.key";
+    private static final String PRIVATE_KEY_SUFFIX = ".private.key";
+    private static final String KEY_RING_FILE = "keyring.properties";
+    // keyring.properties 会被原子替换，文件锁加在不会被替换的单独文件上
+    private static final String KEY_RING_LOCK_FILE = "keyring.lock";
+    private static final String ACTIVE = "active";
+    private static final String RETIRE_PREFIX = "retire.";
+    // 密钥 ID 同时是文件名的一部分，只允许字母、数字、- 和 _
+    private static final Pattern KEY_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    // 新密钥 ID：生成时间（UTC）+ 随机后缀，按字符串排序即按生成时间排序
+    private static final DateTimeFormatter KEY_ID_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+    // 找不到 keyId 时按需重新加载的最小间隔
+    private static final long MISS_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 一个版本的公私钥，成对使用
+     */
+    public record KeyVersion(String id, RSAPublicKey publicKey, RSAPrivateKey privateKey) {
+
+        /**
+         * 密钥长度，两个素数相乘的模数可能比标称长度少一位，按字节向上取整
+         */
+        public int keySize() {
+            return (publicKey.getModulus().bitLength() + 7) / 8 * 8;
+        }
+    }
+
+    /**
+     * 密钥环快照，加载后不再修改，整体替换
+     */
+    private record Ring(Map<String, KeyVersion> keys, KeyVersion active, Map<String, Instant> retireAt) {
+    }
+
+    private static final Ring EMPTY = new Ring(Map.of(), null, Map.of());
+
+    // 配置的密钥长度，生成新密钥时使用
+    private final int keySize;
+    // 被替换的密钥保留多久后退役
+    private final Duration retention;
+    private final Duration retireCheckInterval;
+    private final Path dir = Paths.get(SimpleRSA.KEY_DIR);
+    // 后台生成密钥和检查退役的线程，同一时间只生成一对
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rsa-key-ring");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean generating = new AtomicBoolean();
+    private final SecureRandom random = new SecureRandom();
+    // 上一次因为找不到 keyId 而重新加载的时间（System.nanoTime）
+    private final AtomicLong lastMissReload = new AtomicLong(System.nanoTime() - MISS_RELOAD_INTERVAL_NANOS);
+
+    private volatile Ring ring = EMPTY;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public RSAKeyHolder(@Value("${crypto.rsa.key-size:1024}") int keySize,
+                        @Value("${crypto.keyring.retention:7d}") Duration retention,
+                        @Value("${crypto.keyring.retire-check-interval:1m}") Duration retireCheckInterval) {
+        if (!KEY_SIZES.contains(keySize)) {
+            throw new IllegalArgumentException("不支持的 RSA 密钥长度: " + keySize + "，可选 " + KEY_SIZES);
+        }
+        this.keySize = keySize;
+        this.retention = retention;
+        this.retireCheckInterval = retireCheckInterval;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(dir);
+        reload();
+        if (ring.active == null) {
+            log.info("没有可用的 RSA 公私钥，后台生成 {} 位公私钥", keySize);
+            generate(keySize);
+        }
+        startWatcher();
+        long interval = retireCheckInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::retireExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        scheduler.shutdownNow();
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * 获取当前激活的密钥，加密时使用
+     * @return 激活的密钥
+     * @throws IllegalStateException 密钥正在生成
+     */
+    public KeyVersion getActiveKey() {
+        KeyVersion active = ring.active;
+        if (active == null) {
+            throw new IllegalStateException("RSA 公私钥正在生成，暂不可用");
+        }
+        return active;
+    }
+
+    /**
+     * 按密钥 ID 获取密钥，解密时使用
+     * 没有 keyId 的旧数据包使用 rsa，密钥环中没有 rsa 时使用激活的密钥
+     * 只查找内存中的密钥环，新密钥由目录监听加载；其他节点刚生成、监听事件还没到达的密钥，
+     * 交给后台线程重新加载，全局每秒最多一次，本次仍然拒绝；请求线程不读磁盘也不等锁
+     * @param keyId 数据包中的密钥 ID
+     * @return 密钥
+     * @throws IllegalArgumentException 密钥不存在或已退役
+     */
+    public KeyVersion getKey(String keyId) {
+        Ring current = ring;
+        if (keyId == null || keyId.isEmpty()) {
+            KeyVersion legacy = current.keys.get(LEGACY_KEY_ID);
+            return legacy != null ? legacy : getActiveKey();
+        }
+        KeyVersion key = current.keys.get(keyId);
+        if (key == null && KEY_ID_PATTERN.matcher(keyId).matches() && tryMissReload()) {
+            scheduler.execute(() -> reloadQuietly("找不到密钥 " + keyId));
+            throw new IllegalArgumentException("RSA 密钥尚未加载，请稍后重试: " + keyId);
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("未知或已退役的 RSA 密钥: " + keyId);
+        }
+        return key;
+    }
+
+    /**
+     * 距离上一次按需重新加载已超过 MISS_RELOAD_INTERVAL_NANOS 时，只让一个线程获得重新加载的机会
+     */
+    private boolean tryMissReload() {
+        long now = System.nanoTime();
+        long last = lastMissReload.get();
+        return now - last >= MISS_RELOAD_INTERVAL_NANOS && lastMissReload.compareAndSet(last, now);
+    }
+
+    /**
+     * 在后台线程（目录监听或 rsa-key-ring）上重新加载，失败时等待下一次变更事件或下一次按需加载
+     * @param reason 重新加载的原因，记录在日志中
+     */
+    private void reloadQuietly(String reason) {
+        try {
+            reload();
+            log.info("RSA 密钥环已重新加载: {}", reason);
+        } catch (IOException e) {
+            log.warn("RSA 密钥环暂未重新加载: {}", reason, e);
+        }
+    }
+
+    /**
+     * 密钥环中的所有密钥，按 ID 排序
+     * @return 密钥列表
+     */
+    public List<KeyVersion> getKeys() {
+        List<KeyVersion> keys = new ArrayList<>(ring.keys.values());
+        keys.sort(Comparator.comparing(KeyVersion::id));
+        return keys;
+    }
+
+    /**
+     * 密钥的退役时间，激活的密钥和没有设置退役时间的密钥返回 null
+     * @param keyId 密钥 ID
+     * @return 退役时间
+     */
+    public Instant getRetireAt(String keyId) {
+        return ring.retireAt.get(keyId);
+    }
+
+    /**
+     * 是否有可用的密钥，启动时密钥目录为空、正在后台生成时为 false
+     * @return 是否可用
+     */
+    public boolean isReady() {
+        return ring.active != null;
+    }
+
+    /**
+     * 是否正在后台生成公私钥
+     * @return 是否正在生成
+     */
+    public boolean isGenerating() {
+        return generating.get();
+    }
+
+    /**
+     * 配置的密钥长度
+     * @return 密钥长度
+     */
+    public int getKeySize() {
+        return keySize;
+    }
+
+    /**
+     * 当前激活的密钥长度，没有可用的密钥时为 0
+     * @return 密钥长度
+     */
+    public int getCurrentKeySize() {
+        KeyVersion active = ring.active;
+        return active == null ? 0 : active.keySize();
+    }
+
+    /**
+     * 在后台生成新的公私钥并激活，原来激活的密钥在 crypto.keyring.retention 后退役
+     * 生成期间继续使用原有公私钥；已有生成任务在进行时不重复生成
+     * @param bits 密钥长度
+     * @return 是否开始生成
+     */
+    public boolean generate(int bits) {
+        if (!KEY_SIZES.contains(bits)) {
+            throw new IllegalArgumentException("不支持的 RSA 密钥长度: " + bits + "，可选 " + KEY_SIZES);
+        }
+        if (!generating.compareAndSet(false, true)) {
+            return false;
+        }
+        scheduler.execute(() -> {
+            try {
+                long start = System.nanoTime();
+                SimpleRSA rsa = new SimpleRSA(bits);
+                rsa.generateKey();
+                String id = KEY_ID_TIME.format(Instant.now()) + "-" + HexFormat.of().toHexDigits((short) random.nextInt());
+                // 先写密钥文件，其他节点加载后再激活
+                rsa.writeKeys(publicKeyFile(id), privateKeyFile(id));
+                activate(id);
+                log.info("RSA {} 位公私钥生成成功，密钥 ID {}，耗时 {} ms", bits, id, (System.nanoTime() - start) / 1_000_000);
+            } catch (Exception e) {
+                log.error("RSA {} 位公私钥生成失败", bits, e);
+            } finally {
+                generating.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 激活密钥，原来激活的密钥设置退役时间
+     * 同时清理已经不存在的密钥的退役记录
+     * 在 keyring.lock 的文件锁内读取、修改、写回 keyring.properties，原来激活的密钥以文件中的为准，
+     * 其他节点刚刚激活的密钥也会正确设置退役时间，不会被本节点内存中的旧状态覆盖
+     */
+    private synchronized void activate(String id) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve(KEY_RING_LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            Properties properties = readKeyRing();
+            String previous = properties.getProperty(ACTIVE);
+            if (previous == null && ring.active != null) {
+                previous = ring.active.id();
+            }
+            properties.setProperty(ACTIVE, id);
+            properties.remove(RETIRE_PREFIX + id);
+            if (previous != null && !previous.equals(id)) {
+                properties.setProperty(RETIRE_PREFIX + previous, Instant.now().plus(retention).toString());
+            }
+            for (String name : properties.stringPropertyNames()) {
+                if (name.startsWith(RETIRE_PREFIX) && !Files.exists(privateKeyFile(name.substring(RETIRE_PREFIX.length())))) {
+                    properties.remove(name);
+                }
+            }
+            writeKeyRing(properties);
+        }
+        reload();
+    }
+
+    /**
+     * 删除超过退役时间的密钥文件并重新加载
+     * 多个节点可能同时删除同一个文件，文件已不存在时忽略
+     */
+    private void retireExpired() {
+        try {
+            Ring current = ring;
+            Instant now = Instant.now();
+            boolean changed = false;
+            for (Map.Entry<String, Instant> entry : readRetireTimes(readKeyRing()).entrySet()) {
+                String id = entry.getKey();
+                if (entry.getValue().isAfter(now) || (current.active != null && current.active.id().equals(id))) {
+                    continue;
+                }
+                boolean deleted = Files.deleteIfExists(privateKeyFile(id)) | Files.deleteIfExists(publicKeyFile(id));
+                if (deleted) {
+                    log.info("RSA 密钥已退役: {}", id);
+                    changed = true;
+                }
+            }
+            if (changed || current.retireAt.values().stream().anyMatch(retireAt -> !retireAt.isAfter(now))) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.error("RSA 密钥退役检查失败", e);
+        }
+    }
+
+    /**
+     * 从密钥目录重新加载整个密钥环
+     * 单个密钥文件无法读取或公私钥模数不一致时（例如正在写入）沿用已加载的版本，等待下一次变更事件
+     * 已超过退役时间的密钥不再加载
+     * @throws IOException
+     */
+    public synchronized void reload() throws IOException {
+        Ring current = ring;
+        Properties properties = readKeyRing();
+        Map<String, Instant> retireAt = readRetireTimes(properties);
+        Instant now = Instant.now();
+        String activeId = properties.getProperty(ACTIVE);
+
+        Map<String, KeyVersion> keys = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + PRIVATE_KEY_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String id = name.substring(0, name.length() - PRIVATE_KEY_SUFFIX.length());
+                if (!KEY_ID_PATTERN.matcher(id).matches()) {
+                    continue;
+                }
+                Instant retire = retireAt.get(id);
+                if (retire != null && !retire.isAfter(now) && !id.equals(activeId)) {
+                    continue;
+                }
+                try {
+                    keys.put(id, readKey(id));
+                } catch (IOException e) {
+                    // 正在写入的密钥文件会短暂读取失败，写完后还有变更事件，不需要告警
+                    log.debug("RSA 密钥暂不可读: {}", id, e);
+                    KeyVersion loaded = current.keys.get(id);
+                    if (loaded != null) {
+                        keys.put(id, loaded);
+                    }
+                }
+            }
+        }
+
+        KeyVersion active = chooseActive(keys, activeId, current.active);
+        if (active != null) {
+            retireAt.remove(active.id());
+        }
+        retireAt.keySet().retainAll(keys.keySet());
+        ring = new Ring(Map.copyOf(keys), active, Map.copyOf(retireAt));
+    }
+
+    /**
+     * 选择激活的密钥：keyring.properties 中的 active，该密钥尚未加载时沿用当前激活的密钥，
+     * 都没有时（没有 keyring.properties 的旧目录）依次选择 rsa、ID 最大（最新生成）的密钥
+     */
+    private static KeyVersion chooseActive(Map<String, KeyVersion> keys, String activeId, KeyVersion current) {
+        if (activeId != null && keys.containsKey(activeId)) {
+            return keys.get(activeId);
+        }
+        if (current != null && keys.containsKey(current.id())) {
+            return keys.get(current.id());
+        }
+        if (keys.containsKey(LEGACY_KEY_ID)) {
+            return keys.get(LEGACY_KEY_ID);
+        }
+        return keys.keySet().stream().max(Comparator.naturalOrder()).map(keys::get).orElse(null);
+    }
+
+    private KeyVersion readKey(String id) throws IOException {
+        RSAPublicKey publicKey = SimpleRSA.readPublicKey(publicKeyFile(id));
+        RSAPrivateKey privateKey = SimpleRSA.readPrivateKey(privateKeyFile(id));
+        if (!publicKey.getModulus().equals(privateKey.getModulus())) {
+            throw new IOException("公私钥模数不一致: " + id);
+        }
+        return new KeyVersion(id, publicKey, privateKey);
+    }
+
+    private Properties readKeyRing() throws IOException {
+        Properties properties = new Properties();
+        Path file = dir.resolve(KEY_RING_FILE);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免其他节点读到写了一半的文件
+     * 只在持有 keyring.lock 时调用
+     */
+    private void writeKeyRing(Properties properties) throws IOException {
+        Path file = dir.resolve(KEY_RING_FILE);
+        Path temp = Files.createTempFile(dir, KEY_RING_FILE, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "RSA key ring");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Map<String, Instant> readRetireTimes(Properties properties) {
+        Map<String, Instant> retireAt = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(RETIRE_PREFIX)) {
+                try {
+                    retireAt.put(name.substring(RETIRE_PREFIX.length()), Instant.parse(properties.getProperty(name).trim()));
+                } catch (DateTimeParseException e) {
+                    log.warn("忽略无效的退役时间: {}", name, e);
+                }
+            }
+        }
+        return retireAt;
+    }
+
+    private Path publicKeyFile(String id) {
+        return dir.resolve(id + PUBLIC_KEY_SUFFIX);
+    }
+
+    private Path privateKeyFile(String id) {
+        return dir.resolve(id + PRIVATE_KEY_SUFFIX);
+    }
+
+    /**
+     * 启动密钥目录监听线程
+     * @throws IOException
+     */
+    private void startWatcher() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        watchThread = new Thread(this::watch, "rsa-key-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (context instanceof Path path) {
+                        String name = path.getFileName().toString();
+                        changed |= name.endsWith(PUBLIC_KEY_SUFFIX) || name.endsWith(PRIVATE_KEY_SUFFIX) || name.equals(KEY_RING_FILE);
+                    }
+                }
+                if (changed) {
+                    reloadQuietly("密钥目录变更");
+                }
+                if (!key.reset()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 应用关闭，停止监听
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.encrypttransweb.key;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * RSA 密钥轮换端点 /actuator/rsakeyrotate
+ *  POST 在后台生成新密钥并激活，请求体 {"keySize": 2048} 可指定密钥长度，不指定时使用 crypto.rsa.key-size
+ * 轮换后原来激活的密钥在 crypto.keyring.retention 后退役，退役前用它加密的数据仍能解密
+ * <p>
+ * 生成密钥很耗 CPU，并且会改动所有节点共用的密钥目录，所以默认不在 management.endpoints.web.exposure.include 中，
+ * 需要时只在单独的管理端口（management.server.port）或有访问控制的环境中暴露
+ * 同一时间只有一个生成任务，生成期间的请求直接返回 started=false
+ */
+@Component
+@Endpoint(id = "rsakeyrotate")
+public class RSAKeyRotationEndpoint {
+
+    private final RSAKeyHolder keyHolder;
+    private final RSAKeyEndpoint statusEndpoint;
+
+    public RSAKeyRotationEndpoint(RSAKeyHolder keyHolder, RSAKeyEndpoint statusEndpoint) {
+        this.keyHolder = keyHolder;
+        this.statusEndpoint = statusEndpoint;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rotate(@Nullable Integer keySize) {
+        int bits = keySize == null ? keyHolder.getKeySize() : keySize;
+        if (!RSAKeyHolder.KEY_SIZES.contains(bits)) {
+            String reason = "不支持的 RSA 密钥长度: " + bits + "，可选 " + RSAKeyHolder.KEY_SIZES;
+            throw new InvalidEndpointRequestException(reason, reason);
+        }
+        boolean started = keyHolder.generate(bits);
+        Map<String, Object> status = statusEndpoint.status();
+        status.put("started", started);
+        return status;
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.encrypttransweb.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 加解密指标
+ * 通过 Actuator 的 /actuator/prometheus 暴露，用于定位高负载下 p99 耗时主要花在哪个环节：
+ *  crypto.stage        各环节耗时（Base64、AES、RSA 加解密密钥、签名、验签、SHA-256、HMAC），按 stage、transport 区分，带直方图
+ *  crypto.requests     每次请求的总耗时，按 transport（rest / stomp / websocket）、operation、outcome 区分，带直方图
+ *  crypto.payload.bytes 请求的原始数据或密文字节数，按 transport、operation 区分
+ *  crypto.failures     失败次数，按 transport、operation、exception 区分
+ * <p>
+ * 环节耗时在 CryptoService 内部记录，调用链上没有请求来源，timeRequest 在处理请求期间把 transport 绑定到当前线程，
+ * 其中的各环节按该 transport 记录；不在 timeRequest 中的调用（例如压测预先生成样本）记为 none
+ * 环节的计时都在调用 timeRequest 的线程上进行，并行计算的部分也是在该线程上整体计时，不会丢失 transport
+ * reactive 流式接口的一次请求分成多块在不同线程上处理，每块用 inTransport 绑定 transport，请求结束时用 recordRequest 记录总耗时
+ */
+@Component
+public class CryptoMetrics {
+
+    // 请求来源
+    public static final String REST = "rest";
+    public static final String STOMP = "stomp";
+    public static final String WEBSOCKET = "websocket";
+    // 不属于任何请求
+    public static final String NONE = "none";
+
+    /**
+     * 加解密流程中的各个环节
+     */
+    public enum Stage {
+        BASE64_ENCODE("base64.encode"),
+        BASE64_DECODE("base64.decode"),
+        AES_ENCRYPT("aes.encrypt"),
+        AES_DECRYPT("aes.decrypt"),
+        RSA_WRAP("rsa.wrap"),
+        RSA_UNWRAP("rsa.unwrap"),
+        SIGN("sign"),
+        VERIFY("verify"),
+        SHA256("sha256"),
+        HMAC("hmac");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * 一种请求（transport + operation）的指标，第一次出现时注册，之后直接使用
+     */
+    private final class RequestMeters {
+
+        private final String transport;
+        private final String operation;
+        private final Timer success;
+        private final Timer failure;
+        private final Counter payload;
+        // 异常类名 -> 失败次数
+        private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+
+        private RequestMeters(String transport, String operation) {
+            this.transport = transport;
+            this.operation = operation;
+            this.success = requestTimer("success");
+            this.failure = requestTimer("failure");
+            this.payload = Counter.builder("crypto.payload.bytes")
+                    .description("加解密请求数据字节数")
+                    .baseUnit("bytes")
+                    .tags("transport", transport, "operation", operation)
+                    .register(registry);
+        }
+
+        private Timer requestTimer(String outcome) {
+            return Timer.builder("crypto.requests")
+                    .description("加解密请求总耗时")
+                    .tags("transport", transport, "operation", operation, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        private Counter failures(String exception) {
+            return failures.computeIfAbsent(exception, key -> Counter.builder("crypto.failures")
+                    .description("加解密失败次数")
+                    .tags("transport", transport, "operation", operation, "exception", key)
+                    .register(registry));
+        }
+    }
+
+    private record RequestKey(String transport, String operation) {
+    }
+
+    private final MeterRegistry registry;
+    // transport -> 各环节的 Timer，常用的 transport 预先注册，记录时不需要创建 Timer
+    private final Map<String, Map<Stage, Timer>> stageTimers = new ConcurrentHashMap<>();
+    // 各种请求的总耗时、数据字节数和失败次数，与环节 Timer 一样只在第一次出现时注册
+    private final Map<RequestKey, RequestMeters> requestMeters = new ConcurrentHashMap<>();
+    // 当前线程正在处理的请求来源
+    private final ThreadLocal<String> currentTransport = ThreadLocal.withInitial(() -> NONE);
+
+    public CryptoMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (String transport : new String[]{REST, STOMP, WEBSOCKET, NONE}) {
+            stageTimers(transport);
+        }
+    }
+
+    private Map<Stage, Timer> stageTimers(String transport) {
+        return stageTimers.computeIfAbsent(transport, key -> {
+            Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+            for (Stage stage : Stage.values()) {
+                timers.put(stage, Timer.builder("crypto.stage")
+                        .description("加解密各环节耗时")
+                        .tags("stage", stage.tag, "transport", key)
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            return timers;
+        });
+    }
+
+    /**
+     * 记录一个环节的耗时，transport 为当前线程正在处理的请求来源
+     * @param stage 环节
+     * @param supplier 环节的处理过程
+     * @return 处理结果
+     */
+    public <T> T time(Stage stage, Supplier<T> supplier) {
+        return time(currentTransport.get(), stage, supplier);
+    }
+
+    /**
+     * 记录一个环节的耗时
+     * @param transport 请求来源
+     * @param stage 环节
+     * @param supplier 环节的处理过程
+     * @return 处理结果
+     */
+    public <T> T time(String transport, Stage stage, Supplier<T> supplier) {
+        return stageTimers(transport).get(stage).record(supplier);
+    }
+
+    /**
+     * 记录一次请求的总耗时，失败时同时记录失败次数，异常原样抛出
+     * 处理期间当前线程的环节耗时都按 transport 记录
+     * @param transport 请求来源
+     * @param operation 操作名称
+     * @param callable 请求的处理过程
+     * @return 处理结果
+     * @throws Exception 处理过程抛出的异常
+     */
+    public <T> T timeRequest(String transport, String operation, Callable<T> callable) throws Exception {
+        long start = System.nanoTime();
+        boolean success = true;
+        try {
+            return inTransport(transport, callable);
+        } catch (Exception e) {
+            success = false;
+            recordFailure(transport, operation, e);
+            throw e;
+        } finally {
+            recordRequest(transport, operation, success, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 处理期间当前线程的环节耗时都按 transport 记录，不记录请求耗时
+     * 用于一次请求分成多段、在不同线程上执行的情况（例如 reactive 流式接口逐块处理），每段都要绑定
+     * @param transport 请求来源
+     * @param callable 处理过程
+     * @return 处理结果
+     * @throws Exception 处理过程抛出的异常
+     */
+    public <T> T inTransport(String transport, Callable<T> callable) throws Exception {
+        String previous = currentTransport.get();
+        currentTransport.set(transport);
+        try {
+            return callable.call();
+        } finally {
+            currentTransport.set(previous);
+        }
+    }
+
+    /**
+     * 记录一次请求的总耗时，用于不能用 timeRequest 包住整个处理过程的请求
+     * @param transport 请求来源
+     * @param operation 操作名称
+     * @param success 是否成功，对应 outcome 标签 success / failure
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordRequest(String transport, String operation, boolean success, long nanos) {
+        RequestMeters meters = requestMeters(transport, operation);
+        (success ? meters.success : meters.failure).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录请求数据的字节数
+     * @param transport 请求来源
+     * @param operation 操作名称
+     * @param bytes 字节数
+     */
+    public void recordPayload(String transport, String operation, long bytes) {
+        requestMeters(transport, operation).payload.increment(bytes);
+    }
+
+    /**
+     * 记录一次失败
+     * @param transport 请求来源
+     * @param operation 操作名称
+     * @param e 异常
+     */
+    public void recordFailure(String transport, String operation, Throwable e) {
+        requestMeters(transport, operation).failures(e.getClass().getSimpleName()).increment();
+    }
+
+    private RequestMeters requestMeters(String transport, String operation) {
+        return requestMeters.computeIfAbsent(new RequestKey(transport, operation), key -> new RequestMeters(key.transport(), key.operation()));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.encrypttransweb.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * STOMP 连接指标，数据来自 Spring 的 SubProtocolWebSocketHandler 统计：
+ *  stomp.sessions         当前会话数，按 transport（websocket / http-streaming / http-polling）区分
+ *  stomp.sessions.closed  被服务端断开的会话数，按 reason 区分：
+ *                          slow-consumer 出站缓存或发送时间超过限制（慢客户端）
+ *                          no-message    连接后 stomp.transport.time-to-first-message 内没有发送任何消息
+ *                          transport-error 传输错误
+ * 入站、出站通道线程池的队列长度由 Spring Boot 以 executor.* 指标暴露（name=clientInboundChannelExecutor / clientOutboundChannelExecutor）
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WebSocketMetrics {
+
+    public WebSocketMetrics(MeterRegistry registry, @Qualifier("subProtocolWebSocketHandler") WebSocketHandler handler) {
+        SubProtocolWebSocketHandler.Stats stats = ((SubProtocolWebSocketHandler) WebSocketHandlerDecorator.unwrap(handler)).getStats();
+
+        sessions(registry, stats, "websocket", SubProtocolWebSocketHandler.Stats::getWebSocketSessions);
+        sessions(registry, stats, "http-streaming", SubProtocolWebSocketHandler.Stats::getHttpStreamingSessions);
+        sessions(registry, stats, "http-polling", SubProtocolWebSocketHandler.Stats::getHttpPollingSessions);
+
+        closed(registry, stats, "slow-consumer", SubProtocolWebSocketHandler.Stats::getLimitExceededSessions);
+        closed(registry, stats, "no-message", SubProtocolWebSocketHandler.Stats::getNoMessagesReceivedSessions);
+        closed(registry, stats, "transport-error", SubProtocolWebSocketHandler.Stats::getTransportErrorSessions);
+    }
+
+    private static void sessions(MeterRegistry registry, SubProtocolWebSocketHandler.Stats stats, String transport,
+                                 ToIntFunction<SubProtocolWebSocketHandler.Stats> value) {
+        Gauge.builder("stomp.sessions", stats, s -> value.applyAsInt(s))
+                .description("当前 STOMP 会话数")
+                .tag("transport", transport)
+                .register(registry);
+    }
+
+    private static void closed(MeterRegistry registry, SubProtocolWebSocketHandler.Stats stats, String reason,
+                               ToIntFunction<SubProtocolWebSocketHandler.Stats> value) {
+        FunctionCounter.builder("stomp.sessions.closed", stats, s -> value.applyAsInt(s))
+                .description("被服务端断开的 STOMP 会话数")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
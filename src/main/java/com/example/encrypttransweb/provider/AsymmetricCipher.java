@@ -0,0 +1,31 @@
+package com.example.encrypttransweb.provider;
+
+import com.example.encrypttransweb.utils.RSAPrivateKey;
+import com.example.encrypttransweb.utils.RSAPublicKey;
+
+/**
+ * 非对称加密（无填充 RSA）
+ * 各实现的运算结果在数值上一致，可以任意切换；输出的字节长度可能不同（开头的 0x00），读取时都按无符号大整数处理
+ */
+public interface AsymmetricCipher {
+
+    /**
+     * 公钥加密
+     */
+    byte[] encrypt(byte[] message, RSAPublicKey publicKey);
+
+    /**
+     * 私钥解密，结果按原文长度在左侧补零
+     */
+    byte[] decrypt(byte[] message, RSAPrivateKey privateKey, int length);
+
+    /**
+     * 私钥签名
+     */
+    byte[] sign(byte[] digest, RSAPrivateKey privateKey);
+
+    /**
+     * 公钥还原签名中的摘要，结果按摘要长度在左侧补零
+     */
+    byte[] recover(byte[] signature, RSAPublicKey publicKey, int length);
+}
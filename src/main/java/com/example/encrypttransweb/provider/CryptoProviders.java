@@ -0,0 +1,18 @@
+package com.example.encrypttransweb.provider;
+
+/**
+ * 配置项 crypto.provider 的取值
+ *  simple：项目自带的 SimpleAES / SimpleRSA / SimpleSHA / SimpleBase64，默认值
+ *  jca：JDK 自带的实现，可以利用 AES-NI、SHA 等硬件指令
+ * 新加密的数据使用所选实现，解密时按数据包中的算法选择实现，两种配置下都能解密对方生成的数据包
+ */
+public final class CryptoProviders {
+
+    public static final String PROPERTY = "crypto.provider";
+
+    public static final String SIMPLE = "simple";
+    public static final String JCA = "jca";
+
+    private CryptoProviders() {
+    }
+}
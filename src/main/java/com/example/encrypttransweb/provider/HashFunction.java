@@ -0,0 +1,18 @@
+package com.example.encrypttransweb.provider;
+
+/**
+ * SHA-256 摘要
+ * 各实现的结果完全一致，可以任意切换
+ */
+public interface HashFunction {
+
+    /**
+     * 按顺序对多段数据计算摘要，不需要先拼接成一个数组
+     */
+    byte[] digest(byte[]... parts);
+
+    /**
+     * Merkle 树哈希，规则见 MerkleSHA
+     */
+    byte[] treeHash(byte[] data, byte[]... trailers);
+}
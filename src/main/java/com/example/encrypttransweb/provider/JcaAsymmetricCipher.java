@@ -0,0 +1,144 @@
+package com.example.encrypttransweb.provider;
+
+import com.example.encrypttransweb.utils.RSAPrivateKey;
+import com.example.encrypttransweb.utils.RSAPublicKey;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.RSAPrivateCrtKeySpec;
+import java.security.spec.RSAPrivateKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * JDK RSA/ECB/NoPadding 实现，与 SimpleRSA 一样是无填充的模幂运算，结果在数值上一致
+ * 私钥运算使用 CRT 并带有盲化，可以抵抗计时攻击
+ * JDK 的输出补齐到模数长度，这里统一去掉开头的 0x00，与 SimpleRSA 保持一致
+ * 密钥转换成 JDK 格式的开销不小，转换结果按密钥对象缓存，密钥环中的多个版本各自缓存，
+ * 密钥从密钥环中移除后缓存随之回收
+ */
+@Component
+@ConditionalOnProperty(name = CryptoProviders.PROPERTY, havingValue = CryptoProviders.JCA)
+public class JcaAsymmetricCipher implements AsymmetricCipher {
+
+    private static final String TRANSFORMATION = "RSA/ECB/NoPadding";
+
+    private final KeyFactory keyFactory;
+
+    // 按密钥对象的引用缓存，密钥对象不再被引用时自动移除
+    private final Map<RSAPublicKey, PublicKey> publicKeyCache = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<RSAPrivateKey, PrivateKey> privateKeyCache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public JcaAsymmetricCipher() throws GeneralSecurityException {
+        this.keyFactory = KeyFactory.getInstance("RSA");
+    }
+
+    @Override
+    public byte[] encrypt(byte[] message, RSAPublicKey publicKey) {
+        return stripLeadingZeros(doFinal(Cipher.ENCRYPT_MODE, toJca(publicKey), message));
+    }
+
+    @Override
+    public byte[] decrypt(byte[] message, RSAPrivateKey privateKey, int length) {
+        return fitLength(doFinal(Cipher.DECRYPT_MODE, toJca(privateKey), message), length);
+    }
+
+    @Override
+    public byte[] sign(byte[] digest, RSAPrivateKey privateKey) {
+        return stripLeadingZeros(doFinal(Cipher.ENCRYPT_MODE, toJca(privateKey), digest));
+    }
+
+    @Override
+    public byte[] recover(byte[] signature, RSAPublicKey publicKey, int length) {
+        return fitLength(doFinal(Cipher.DECRYPT_MODE, toJca(publicKey), signature), length);
+    }
+
+    private static byte[] doFinal(int opmode, Key key, byte[] input) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(opmode, key);
+            // 输入按无符号大整数处理，去掉开头的 0x00 以免超过模数长度
+            return cipher.doFinal(stripLeadingZeros(input));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("RSA 运算失败: " + e.getMessage(), e);
+        }
+    }
+
+    private PublicKey toJca(RSAPublicKey publicKey) {
+        PublicKey cached = publicKeyCache.get(publicKey);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            PublicKey key = keyFactory.generatePublic(new RSAPublicKeySpec(publicKey.getModulus(), publicKey.getExponent()));
+            publicKeyCache.put(publicKey, key);
+            return key;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("无效的 RSA 公钥", e);
+        }
+    }
+
+    /**
+     * 私钥只保存了 d 和 CRT 参数，JDK 的 CRT 私钥还需要公钥指数 e，由 e = d^-1 mod (p-1)(q-1) 算出
+     * 旧格式的私钥没有 CRT 参数，只能使用普通私钥
+     */
+    private PrivateKey toJca(RSAPrivateKey privateKey) {
+        PrivateKey cached = privateKeyCache.get(privateKey);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            PrivateKey key;
+            if (privateKey.hasCrt()) {
+                BigInteger p = privateKey.getP();
+                BigInteger q = privateKey.getQ();
+                BigInteger phi = p.subtract(BigInteger.ONE).multiply(q.subtract(BigInteger.ONE));
+                BigInteger publicExponent = privateKey.getExponent().modInverse(phi);
+                key = keyFactory.generatePrivate(new RSAPrivateCrtKeySpec(
+                        privateKey.getModulus(), publicExponent, privateKey.getExponent(),
+                        p, q, privateKey.getDP(), privateKey.getDQ(), privateKey.getQInv()));
+            } else {
+                key = keyFactory.generatePrivate(new RSAPrivateKeySpec(privateKey.getModulus(), privateKey.getExponent()));
+            }
+            privateKeyCache.put(privateKey, key);
+            return key;
+        } catch (GeneralSecurityException | ArithmeticException e) {
+            throw new IllegalArgumentException("无效的 RSA 私钥", e);
+        }
+    }
+
+    private static byte[] stripLeadingZeros(byte[] bytes) {
+        int start = 0;
+        while (start < bytes.length - 1 && bytes[start] == 0) {
+            start++;
+        }
+        if (start == 0) {
+            return bytes;
+        }
+        byte[] result = new byte[bytes.length - start];
+        System.arraycopy(bytes, start, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * 去掉开头的 0x00 后在左侧补零到指定长度，超过指定长度时原样返回，由调用方按错误数据处理
+     */
+    private static byte[] fitLength(byte[] bytes, int length) {
+        byte[] stripped = stripLeadingZeros(bytes);
+        if (stripped.length >= length) {
+            return stripped;
+        }
+        byte[] result = new byte[length];
+        System.arraycopy(stripped, 0, result, length - stripped.length, stripped.length);
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.encrypttransweb.provider;
+
+import com.example.encrypttransweb.utils.MerkleSHA;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Supplier;
+
+/**
+ * JDK MessageDigest 实现，JVM 在支持的 CPU 上使用 SHA 指令
+ * 树哈希的结构仍由 MerkleSHA 负责，只替换各节点的哈希计算
+ */
+@Component
+@ConditionalOnProperty(name = CryptoProviders.PROPERTY, havingValue = CryptoProviders.JCA)
+public class JcaHashFunction implements HashFunction {
+
+    private static final Supplier<MerkleSHA.Digest> DIGESTS = () -> {
+        MessageDigest sha = newDigest();
+        return new MerkleSHA.Digest() {
+            @Override
+            public void update(byte[] input, int offset, int length) {
+                sha.update(input, offset, length);
+            }
+
+            @Override
+            public byte[] digest() {
+                return sha.digest();
+            }
+        };
+    };
+
+    @Override
+    public byte[] digest(byte[]... parts) {
+        MessageDigest sha = newDigest();
+        for (byte[] part : parts) {
+            sha.update(part);
+        }
+        return sha.digest();
+    }
+
+    @Override
+    public byte[] treeHash(byte[] data, byte[]... trailers) {
+        return MerkleSHA.treeHash(DIGESTS, data, trailers);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // 每个 JDK 都必须支持 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.encrypttransweb.provider;
+
+import com.example.encrypttransweb.utils.SimpleAES;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * JDK 标准 AES 实现，JVM 在支持的 CPU 上使用 AES-NI 指令
+ * 工作模式与 SimpleAES 对应：ECB、CBC 使用 PKCS5 填充，CTR 不需要填充
+ * 与 SimpleAES 的结果不同，数据包中的算法标记为 AES
+ */
+@Component
+public class JcaSymmetricCipher implements SymmetricCipher {
+
+    public static final String ALGORITHM = "AES";
+
+    private static final int KEY_LENGTH = 16;
+    private static final int BLOCK_SIZE = 16;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Override
+    public String provider() {
+        return CryptoProviders.JCA;
+    }
+
+    @Override
+    public String algorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public byte[] generateKey() {
+        byte[] key = new byte[KEY_LENGTH];
+        RANDOM.nextBytes(key);
+        return key;
+    }
+
+    @Override
+    public byte[] generateIV() {
+        byte[] iv = new byte[BLOCK_SIZE];
+        RANDOM.nextBytes(iv);
+        return iv;
+    }
+
+    @Override
+    public byte[] encrypt(byte[] input, byte[] key, int mode, byte[] iv) {
+        return doFinal(Cipher.ENCRYPT_MODE, input, key, mode, iv);
+    }
+
+    @Override
+    public byte[] decrypt(byte[] input, byte[] key, int mode, byte[] iv) {
+        return doFinal(Cipher.DECRYPT_MODE, input, key, mode, iv);
+    }
+
+    private static byte[] doFinal(int opmode, byte[] input, byte[] key, int mode, byte[] iv) {
+        try {
+            SecretKeySpec keySpec = new SecretKeySpec(key, ALGORITHM);
+            Cipher cipher = Cipher.getInstance(transformation(mode));
+            if (mode == SimpleAES.MODE_ECB) {
+                cipher.init(opmode, keySpec);
+            } else {
+                cipher.init(opmode, keySpec, new IvParameterSpec(iv));
+            }
+            return cipher.doFinal(input);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("AES 运算失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static String transformation(int mode) {
+        switch (mode) {
+            case SimpleAES.MODE_ECB:
+                return "AES/ECB/PKCS5Padding";
+            case SimpleAES.MODE_CBC:
+                return "AES/CBC/PKCS5Padding";
+            case SimpleAES.MODE_CTR:
+                return "AES/CTR/NoPadding";
+            default:
+                throw new IllegalArgumentException("不支持的工作模式: " + mode);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.encrypttransweb.provider;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+
+/**
+ * JDK java.util.Base64 实现，标准字母表，带 '=' 填充，不换行
+ */
+@Component
+@ConditionalOnProperty(name = CryptoProviders.PROPERTY, havingValue = CryptoProviders.JCA)
+public class JcaTextEncoding implements TextEncoding {
+
+    @Override
+    public String encode(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    @Override
+    public byte[] decode(String text) {
+        return Base64.getDecoder().decode(text);
+    }
+}
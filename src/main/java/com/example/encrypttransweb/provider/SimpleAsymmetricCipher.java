@@ -0,0 +1,35 @@
+package com.example.encrypttransweb.provider;
+
+import com.example.encrypttransweb.utils.RSAPrivateKey;
+import com.example.encrypttransweb.utils.RSAPublicKey;
+import com.example.encrypttransweb.utils.SimpleRSA;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * SimpleRSA 实现
+ */
+@Component
+@ConditionalOnProperty(name = CryptoProviders.PROPERTY, havingValue = CryptoProviders.SIMPLE, matchIfMissing = true)
+public class SimpleAsymmetricCipher implements AsymmetricCipher {
+
+    @Override
+    public byte[] encrypt(byte[] message, RSAPublicKey publicKey) {
+        return SimpleRSA.encrypt(message, publicKey);
+    }
+
+    @Override
+    public byte[] decrypt(byte[] message, RSAPrivateKey privateKey, int length) {
+        return SimpleRSA.decrypt(message, privateKey, length);
+    }
+
+    @Override
+    public byte[] sign(byte[] digest, RSAPrivateKey privateKey) {
+        return SimpleRSA.encrypt(digest, privateKey);
+    }
+
+    @Override
+    public byte[] recover(byte[] signature, RSAPublicKey publicKey, int length) {
+        return SimpleRSA.decrypt(signature, publicKey, length);
+    }
+}
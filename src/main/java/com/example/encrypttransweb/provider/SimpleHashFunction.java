@@ -0,0 +1,28 @@
+package com.example.encrypttransweb.provider;
+
+import com.example.encrypttransweb.utils.MerkleSHA;
+import com.example.encrypttransweb.utils.SimpleSHA;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * SimpleSHA 实现
+ */
+@Component
+@ConditionalOnProperty(name = CryptoProviders.PROPERTY, havingValue = CryptoProviders.SIMPLE, matchIfMissing = true)
+public class SimpleHashFunction implements HashFunction {
+
+    @Override
+    public byte[] digest(byte[]... parts) {
+        SimpleSHA sha = new SimpleSHA();
+        for (byte[] part : parts) {
+            sha.update(part);
+        }
+        return sha.digest();
+    }
+
+    @Override
+    public byte[] treeHash(byte[] data, byte[]... trailers) {
+        return MerkleSHA.treeHash(data, trailers);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.encrypttransweb.provider;
+
+import com.example.encrypttransweb.utils.AESKey;
+import com.example.encrypttransweb.utils.SimpleAES;
+import org.springframework.stereotype.Component;
+
+/**
+ * SimpleAES 实现，兼容之前的所有数据包
+ */
+@Component
+public class SimpleSymmetricCipher implements SymmetricCipher {
+
+    public static final String ALGORITHM = "SIMPLE-AES";
+
+    @Override
+    public String provider() {
+        return CryptoProviders.SIMPLE;
+    }
+
+    @Override
+    public String algorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public byte[] generateKey() {
+        return SimpleAES.generateRandomKey();
+    }
+
+    @Override
+    public byte[] generateIV() {
+        return SimpleAES.generateIV();
+    }
+
+    @Override
+    public byte[] encrypt(byte[] input, byte[] key, int mode, byte[] iv) {
+        return SimpleAES.encrypt(input, new AESKey(key), mode, iv);
+    }
+
+    @Override
+    public byte[] decrypt(byte[] input, byte[] key, int mode, byte[] iv) {
+        return SimpleAES.decrypt(input, new AESKey(key), mode, iv);
+    }
+}
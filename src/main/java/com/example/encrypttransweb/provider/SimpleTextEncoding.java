@@ -0,0 +1,23 @@
+package com.example.encrypttransweb.provider;
+
+import com.example.encrypttransweb.utils.SimpleBase64;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * SimpleBase64 实现
+ */
+@Component
+@ConditionalOnProperty(name = CryptoProviders.PROPERTY, havingValue = CryptoProviders.SIMPLE, matchIfMissing = true)
+public class SimpleTextEncoding implements TextEncoding {
+
+    @Override
+    public String encode(byte[] bytes) {
+        return SimpleBase64.byteToBase64(bytes);
+    }
+
+    @Override
+    public byte[] decode(String text) {
+        return SimpleBase64.base64ToByte(text);
+    }
+}
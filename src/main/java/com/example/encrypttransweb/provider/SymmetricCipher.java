@@ -0,0 +1,27 @@
+package com.example.encrypttransweb.provider;
+
+/**
+ * 对称加密
+ * 工作模式取值见 SimpleAES.MODE_*
+ * SimpleAES 不是标准 AES，和 JDK 的 AES 结果不同，数据包中通过 algorithm 标明使用的算法，解密时按算法选择实现
+ */
+public interface SymmetricCipher {
+
+    /**
+     * 所属的实现，对应配置项 crypto.provider
+     */
+    String provider();
+
+    /**
+     * 算法名称，记录在数据包中
+     */
+    String algorithm();
+
+    byte[] generateKey();
+
+    byte[] generateIV();
+
+    byte[] encrypt(byte[] input, byte[] key, int mode, byte[] iv);
+
+    byte[] decrypt(byte[] input, byte[] key, int mode, byte[] iv);
+}
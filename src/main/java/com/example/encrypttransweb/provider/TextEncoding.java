@@ -0,0 +1,15 @@
+package com.example.encrypttransweb.provider;
+
+/**
+ * Base64 编码
+ * 各实现的结果完全一致，可以任意切换
+ */
+public interface TextEncoding {
+
+    String encode(byte[] bytes);
+
+    /**
+     * @throws IllegalArgumentException 不是合法的 Base64
+     */
+    byte[] decode(String text);
+}
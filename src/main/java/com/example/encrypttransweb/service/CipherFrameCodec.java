@@ -0,0 +1,138 @@
+package com.example.encrypttransweb.service;
+
+import com.example.encrypttransweb.bean.CipherPacket;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 密文数据包的二进制帧格式
+ * 二进制接口（application/octet-stream）直接收发这种格式，省去 Base64 和 JSON 的开销：
+ *  魔数 "ETF"(3) | 版本(1) | { 字段标签(1) | 字段长度(4) | 字段内容 } ...
+ * 字段一直排到帧结束，顺序不限，遇到不认识的标签直接跳过，新增字段不需要升级版本
+ * 只有无法兼容的格式变化才升级版本号
+ */
+public class CipherFrameCodec {
+
+    // 魔数 "ETF"
+    private static final byte[] MAGIC = {'E', 'T', 'F'};
+    public static final int VERSION = 1;
+
+    // 字段标签
+    private static final int TAG_CIPHER_TEXT = 1;
+    private static final int TAG_CIPHER_KEY = 2;
+    private static final int TAG_CIPHER_SIGNATURE = 3;
+    private static final int TAG_CIPHER_IV = 4;
+    private static final int TAG_CIPHER_MODE = 5;
+    private static final int TAG_SIGNATURE_MODE = 6;
+    private static final int TAG_CIPHER_ALGORITHM = 7;
+    private static final int TAG_KEY_ID = 8;
+    private static final int TAG_SESSION_ID = 9;
+
+    // 每个字段的标签和长度占用的字节数
+    private static final int FIELD_HEADER = 5;
+
+    /**
+     * 编码
+     * @param packet 密文数据包
+     * @return 二进制帧
+     */
+    public static byte[] encode(CipherPacket packet) {
+        byte[] signatureMode = ascii(packet.getSignatureMode());
+        byte[] cipherAlgorithm = ascii(packet.getCipherAlgorithm());
+        byte[] keyId = ascii(packet.getKeyId());
+        byte[] sessionId = ascii(packet.getSessionId());
+        int size = MAGIC.length + 1
+                + FIELD_HEADER + packet.getCipherText().length
+                + FIELD_HEADER + packet.getCipherKey().length
+                + FIELD_HEADER + packet.getCipherSignature().length
+                + FIELD_HEADER + packet.getCipherIv().length
+                + FIELD_HEADER + 1
+                + (signatureMode == null ? 0 : FIELD_HEADER + signatureMode.length)
+                + (cipherAlgorithm == null ? 0 : FIELD_HEADER + cipherAlgorithm.length)
+                + (keyId == null ? 0 : FIELD_HEADER + keyId.length)
+                + (sessionId == null ? 0 : FIELD_HEADER + sessionId.length);
+
+        ByteBuffer frame = ByteBuffer.allocate(size);
+        frame.put(MAGIC).put((byte) VERSION);
+        putField(frame, TAG_CIPHER_TEXT, packet.getCipherText());
+        putField(frame, TAG_CIPHER_KEY, packet.getCipherKey());
+        putField(frame, TAG_CIPHER_SIGNATURE, packet.getCipherSignature());
+        putField(frame, TAG_CIPHER_IV, packet.getCipherIv());
+        putField(frame, TAG_CIPHER_MODE, new byte[]{(byte) packet.getCipherMode()});
+        if (signatureMode != null) {
+            putField(frame, TAG_SIGNATURE_MODE, signatureMode);
+        }
+        if (cipherAlgorithm != null) {
+            putField(frame, TAG_CIPHER_ALGORITHM, cipherAlgorithm);
+        }
+        if (keyId != null) {
+            putField(frame, TAG_KEY_ID, keyId);
+        }
+        if (sessionId != null) {
+            putField(frame, TAG_SESSION_ID, sessionId);
+        }
+        return frame.array();
+    }
+
+    /**
+     * 解码
+     * @param frame 二进制帧
+     * @return 密文数据包
+     * @throws IllegalArgumentException 格式错误
+     */
+    public static CipherPacket decode(byte[] frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        try {
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IllegalArgumentException("不是有效的密文数据帧");
+                }
+            }
+            int version = buffer.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IllegalArgumentException("不支持的数据帧版本: " + version);
+            }
+
+            CipherPacket packet = new CipherPacket();
+            while (buffer.hasRemaining()) {
+                int tag = buffer.get() & 0xFF;
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IllegalArgumentException("数据帧字段长度错误: " + length);
+                }
+                byte[] value = new byte[length];
+                buffer.get(value);
+                switch (tag) {
+                    case TAG_CIPHER_TEXT -> packet.setCipherText(value);
+                    case TAG_CIPHER_KEY -> packet.setCipherKey(value);
+                    case TAG_CIPHER_SIGNATURE -> packet.setCipherSignature(value);
+                    case TAG_CIPHER_IV -> packet.setCipherIv(value);
+                    case TAG_CIPHER_MODE -> packet.setCipherMode(value.length == 1 ? value[0] & 0xFF : -1);
+                    case TAG_SIGNATURE_MODE -> packet.setSignatureMode(new String(value, StandardCharsets.US_ASCII));
+                    case TAG_CIPHER_ALGORITHM -> packet.setCipherAlgorithm(new String(value, StandardCharsets.US_ASCII));
+                    case TAG_KEY_ID -> packet.setKeyId(new String(value, StandardCharsets.US_ASCII));
+                    case TAG_SESSION_ID -> packet.setSessionId(new String(value, StandardCharsets.US_ASCII));
+                    default -> {
+                        // 新版本增加的字段，忽略
+                    }
+                }
+            }
+            if (packet.getCipherText() == null || packet.getCipherKey() == null || packet.getCipherSignature() == null) {
+                throw new IllegalArgumentException("数据帧缺少必要字段");
+            }
+            return packet;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("数据帧不完整");
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void putField(ByteBuffer frame, int tag, byte[] value) {
+        frame.put((byte) tag).putInt(value.length).put(value);
+    }
+}
@@ -0,0 +1,965 @@
+package com.example.encrypttransweb.service;
+
+import com.example.encrypttransweb.bean.CipherBatch;
+import com.example.encrypttransweb.bean.CipherData;
+import com.example.encrypttransweb.bean.CipherPacket;
+import com.example.encrypttransweb.bean.CipherSession;
+import com.example.encrypttransweb.key.RSAKeyHolder;
+import com.example.encrypttransweb.key.RSAKeyHolder.KeyVersion;
+import com.example.encrypttransweb.metrics.CryptoMetrics;
+import com.example.encrypttransweb.metrics.CryptoMetrics.Stage;
+import com.example.encrypttransweb.provider.AsymmetricCipher;
+import com.example.encrypttransweb.provider.CryptoProviders;
+import com.example.encrypttransweb.provider.HashFunction;
+import com.example.encrypttransweb.provider.SimpleSymmetricCipher;
+import com.example.encrypttransweb.provider.SymmetricCipher;
+import com.example.encrypttransweb.provider.TextEncoding;
+import com.example.encrypttransweb.session.CryptoSession;
+import com.example.encrypttransweb.session.SessionTable;
+import com.example.encrypttransweb.utils.AESKey;
+import com.example.encrypttransweb.utils.SimpleAES;
+import com.example.encrypttransweb.utils.SimpleHMAC;
+import com.example.encrypttransweb.utils.SimpleSHA;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 加解密流程
+ * Web 接口和 WebSocket 接口共用同一套流程：
+ *  加密：AES 加密原始数据 -> RSA 公钥加密 AES Key -> 对签名方式、加密算法、工作模式、密文、密钥密文、IV 做 SHA-256 摘要并用 RSA 私钥签名
+ *  解密：RSA 公钥验签 -> RSA 私钥解密 AES Key -> AES 解密还原原始数据
+ * <p>
+ * 流式加解密使用二进制格式，数据按块边读边处理，内存占用与数据大小无关：
+ *  魔数 "ETS2"(4) | 工作模式(1) | 密钥 ID 长度(1) | 密钥 ID | IV 长度(2) | IV | 密钥密文长度(2) | 密钥密文
+ *  | { 数据块长度(4) | 数据块密文 } ... | 0(4) | 签名长度(2) | 签名
+ * 除最后一块外每块都是 64KB，CTR 计数器按已处理的字节数计算；签名不覆盖数据块长度，解密时不符合这个分块方式的流直接拒绝，
+ * 否则把同一段密文重新分块后签名仍然有效，计数器却会错位，得到错误的原始数据
+ * 旧版本的 "ETS1" 格式没有密钥 ID，解密时仍然支持，按 rsa 密钥处理
+ * 格式的编解码在 StreamEncryptor / StreamDecryptor 中增量进行，数据由调用方分次交入，不依赖 InputStream，
+ * servlet 接口从请求的 InputStream 读出后交入，reactive 接口对请求体的每个 DataBuffer 交入，不阻塞线程
+ * 签名是对 密文 + 密钥密文 + IV 的 SHA-256 摘要的 RSA 私钥签名，摘要随数据块增量计算；流式格式固定使用 CTR 和 SimpleAES，不需要另外绑定
+ * <p>
+ * 密文达到 crypto.signature.merkle-threshold 字节时，CipherData 改用 Merkle 树哈希（MERKLE-SHA256）作为签名摘要，
+ * 密文分块并行计算哈希，密钥密文、IV 和签名方式等字段作为最后的叶子，签名方式记录在数据包中，解密时按数据包声明的方式校验
+ * 签名覆盖签名方式、加密算法和工作模式（见 signatureDigest），篡改这些字段会让验签失败，不会用错误的方式解密
+ * <p>
+ * 加解密流程本身只处理字节形式的 CipherPacket，JSON 接口使用的 CipherData 只是它的 Base64 视图，
+ * 二进制接口通过 CipherFrameCodec 直接收发 CipherPacket，不经过 Base64
+ * <p>
+ * 批量加解密整批共用一个 AES Key，RSA 加密密钥和签名各只做一次，分摊到每条消息上：
+ *  每条消息使用各自的 IV 加密，并计算 SHA-256(IV + 密文) 作为该条摘要
+ *  批次签名是对 SHA-256(各条摘要依次拼接 + 密钥密文) 的 RSA 私钥签名
+ * 各条消息的加解密和摘要互不依赖，在多核上并行处理
+ * <p>
+ * RSA 公私钥来自 RSAKeyHolder 密钥环：加密使用激活的密钥并在数据包中记录密钥 ID（keyId），
+ * 解密按 keyId 找到加密时使用的密钥，一次加解密中的 RSA 运算都使用同一个版本的公私钥
+ * <p>
+ * 会话模式把 RSA 运算移到握手阶段，适用于同一客户端持续发送大量消息：
+ *  握手：生成 AES 密钥和 HMAC 密钥存入 SessionTable，用 RSA 公钥加密、RSA 私钥签名后返回给客户端（CipherSession）
+ *  消息：AES 加密后对数据包的各字段（见 macInput）计算 HMAC-SHA256，数据包中只有 sessionId，没有 cipherKey，签名方式为 HMAC-SHA256
+ *  每条消息不再做 RSA 运算，只有 AES 和两次哈希；会话在本节点不存在时，客户端提交握手结果即可恢复
+ * <p>
+ * crypto.signature.mode=hmac 时，数据包的完整性校验改用 HMAC-SHA256（签名方式为 HMAC-SHA256），适用于可信的内部链路：
+ *  对数据包的各字段（见 macInput）计算 HMAC，密钥是收发双方预先共享的 crypto.signature.hmac-key，不再做 RSA 签名和验签
+ *  AES Key 仍由 RSA 加密，只是省掉签名这一次 RSA 私钥运算，校验的计算量和一次 SHA-256 差不多
+ *  只要配置了 crypto.signature.hmac-key，无论 crypto.signature.mode 是什么，都能解密 HMAC-SHA256 数据包
+ *  批量和流式格式仍使用 RSA 签名
+ * <p>
+ * 各环节（Base64、AES、RSA、签名、验签、摘要、HMAC）的耗时通过 CryptoMetrics 记录
+ * <p>
+ * AES、RSA、SHA-256 和 Base64 通过 provider 包中的接口调用，crypto.provider 选择使用的实现，
+ * 数据包中记录对称加密算法（cipherAlgorithm），解密时按算法选择实现，没有该字段的旧数据包按 SIMPLE-AES 处理
+ * 流式格式没有算法字段，AES 和摘要固定使用 SimpleAES / SimpleSHA
+ * <p>
+ * RSA 私钥运算（解密 AES Key、签名）是最耗 CPU 的环节，同时进行的数量由 crypto.rsa.max-concurrency 限制，
+ * 使用虚拟线程时请求数远多于 CPU 核数，超出的请求在这里排队，不会同时占满所有载体线程
+ */
+@Service
+public class CryptoService {
+
+    // 新数据包默认使用 CTR 模式，大数据量时加解密都可以并行
+    public static final int DEFAULT_MODE = SimpleAES.MODE_CTR;
+
+    // 流式格式魔数 "ETS2"，旧版本 "ETS1" 没有密钥 ID
+    private static final int STREAM_MAGIC = 0x45545332;
+    private static final int STREAM_MAGIC_V1 = 0x45545331;
+    // 流式处理的数据块大小，必须是 AES 分组长度的整数倍
+    private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+
+    // AES Key 和签名摘要的长度，RSA 解密后按该长度补回开头的 0x00
+    private static final int AES_KEY_LENGTH = 16;
+    private static final int DIGEST_LENGTH = 32;
+
+    // 签名摘要方式
+    public static final String SIGNATURE_SHA256 = "SHA256";
+    public static final String SIGNATURE_MERKLE_SHA256 = "MERKLE-SHA256";
+    public static final String SIGNATURE_HMAC_SHA256 = "HMAC-SHA256";
+
+    // crypto.signature.mode 可选值：数据包使用 RSA 签名或 HMAC-SHA256
+    public static final String SIGNATURE_MODE_RSA = "rsa";
+    public static final String SIGNATURE_MODE_HMAC = "hmac";
+
+    // 会话的 HMAC 密钥长度，与 AES 密钥一起用 RSA 加密
+    private static final int MAC_KEY_LENGTH = 32;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final RSAKeyHolder keyHolder;
+    private final SessionTable sessions;
+    private final CryptoMetrics metrics;
+    // 密文达到该字节数时使用 Merkle 树哈希
+    private final int merkleThreshold;
+    // 数据包使用 HMAC-SHA256 代替 RSA 签名
+    private final boolean hmacSignature;
+    // crypto.signature.hmac-key 对应的 HMAC，未配置时为 null
+    private final SimpleHMAC packetMac;
+
+    // 新数据包使用的对称加密实现
+    private final SymmetricCipher cipher;
+    // 解密时按数据包中的算法查找
+    private final Map<String, SymmetricCipher> ciphers;
+    private final AsymmetricCipher rsa;
+    private final HashFunction hash;
+    private final TextEncoding base64;
+    // 限制同时进行的 RSA 私钥运算
+    private final Semaphore privateKeyPermits;
+
+    public CryptoService(RSAKeyHolder keyHolder, SessionTable sessions, CryptoMetrics metrics,
+                         @Value("${crypto.signature.merkle-threshold:1048576}") int merkleThreshold,
+                         @Value("${crypto.signature.mode:" + SIGNATURE_MODE_RSA + "}") String signatureMode,
+                         @Value("${crypto.signature.hmac-key:}") String hmacKey,
+                         @Value("${" + CryptoProviders.PROPERTY + ":" + CryptoProviders.SIMPLE + "}") String provider,
+                         @Value("${crypto.rsa.max-concurrency:0}") int rsaMaxConcurrency,
+                         List<SymmetricCipher> ciphers, AsymmetricCipher rsa, HashFunction hash, TextEncoding base64) {
+        this.keyHolder = keyHolder;
+        this.sessions = sessions;
+        this.metrics = metrics;
+        this.merkleThreshold = merkleThreshold;
+        this.ciphers = ciphers.stream().collect(Collectors.toMap(SymmetricCipher::algorithm, Function.identity()));
+        this.cipher = ciphers.stream()
+                .filter(c -> c.provider().equalsIgnoreCase(provider))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("不支持的 " + CryptoProviders.PROPERTY + ": " + provider));
+        this.rsa = rsa;
+        this.hash = hash;
+        this.base64 = base64;
+        this.packetMac = hmacKey.isEmpty() ? null : newPacketMac(base64.decode(hmacKey));
+        if (SIGNATURE_MODE_HMAC.equalsIgnoreCase(signatureMode)) {
+            if (packetMac == null) {
+                throw new IllegalArgumentException("crypto.signature.mode=hmac 时必须配置 crypto.signature.hmac-key");
+            }
+            this.hmacSignature = true;
+        } else if (SIGNATURE_MODE_RSA.equalsIgnoreCase(signatureMode)) {
+            this.hmacSignature = false;
+        } else {
+            throw new IllegalArgumentException("不支持的 crypto.signature.mode: " + signatureMode);
+        }
+        // 未配置时按 CPU 核数
+        this.privateKeyPermits = new Semaphore(rsaMaxConcurrency > 0 ? rsaMaxConcurrency : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 加密
+     * @param plainText 原始数据
+     * @return Base64 形式的密文数据包
+     */
+    public CipherData encrypt(byte[] plainText) {
+        return toCipherData(encryptPacket(plainText));
+    }
+
+    /**
+     * 加密
+     * @param plainText 原始数据
+     * @return 密文数据包
+     */
+    public CipherPacket encryptPacket(byte[] plainText) {
+        KeyVersion rsaKey = keyHolder.getActiveKey();
+        // 1. 接收原始数据，AES 加密
+        byte[] aesKey = cipher.generateKey();
+        byte[] iv = cipher.generateIV();
+        byte[] cipherText = metrics.time(Stage.AES_ENCRYPT, () -> cipher.encrypt(plainText, aesKey, DEFAULT_MODE, iv));
+        // 2. RSA 加密 AES Key
+        byte[] cipherKey = metrics.time(Stage.RSA_WRAP, () -> rsa.encrypt(aesKey, rsaKey.publicKey()));
+        // 合并数据
+        String signatureMode = hmacSignature ? SIGNATURE_HMAC_SHA256
+                : cipherText.length >= merkleThreshold ? SIGNATURE_MERKLE_SHA256 : SIGNATURE_SHA256;
+        CipherPacket packet = new CipherPacket(cipherText, cipherKey, null, iv, DEFAULT_MODE, signatureMode);
+        packet.setCipherAlgorithm(cipher.algorithm());
+        packet.setKeyId(rsaKey.id());
+        // 3. 对数据包的各字段计算摘要，生成数字签名，大数据量时使用树哈希；HMAC 模式下只计算 HMAC
+        if (hmacSignature) {
+            packet.setCipherSignature(metrics.time(Stage.HMAC, () -> packetMac.mac(macInput(packet))));
+        } else {
+            byte[] signature = metrics.time(Stage.SHA256, () -> signatureDigest(packet));
+            packet.setCipherSignature(privateKeyOperation(Stage.SIGN, () -> rsa.sign(signature, rsaKey.privateKey())));
+        }
+        return packet;
+    }
+
+    /**
+     * 解密
+     * @param cipherData Base64 形式的密文数据包
+     * @return 原始数据
+     * @throws Exception 签名方式不支持或签名校验失败
+     */
+    public byte[] decrypt(CipherData cipherData) throws Exception {
+        return decrypt(toCipherPacket(cipherData));
+    }
+
+    /**
+     * 解密
+     * @param packet 密文数据包
+     * @return 原始数据
+     * @throws Exception 签名方式不支持或签名校验失败
+     */
+    public byte[] decrypt(CipherPacket packet) throws Exception {
+        if (packet.getSessionId() != null && !packet.getSessionId().isEmpty()) {
+            return decryptSession(packet);
+        }
+        // 1. 拆解密文数据包
+        byte[] cipherText = packet.getCipherText();
+        byte[] cipherKey = packet.getCipherKey();
+        int mode = packet.getCipherMode();
+        byte[] iv = packet.getCipherIv();
+        SymmetricCipher packetCipher = cipherOf(packet.getCipherAlgorithm());
+        KeyVersion rsaKey = keyHolder.getKey(packet.getKeyId());
+
+        // 2. 验证签名完整性
+        if (SIGNATURE_HMAC_SHA256.equals(packet.getSignatureMode())) {
+            if (packetMac == null) {
+                throw new IllegalArgumentException("未配置 crypto.signature.hmac-key，不能校验 HMAC-SHA256 数据包");
+            }
+            if (!metrics.time(Stage.HMAC, () -> packetMac.verify(packet.getCipherSignature(), macInput(packet)))) {
+                throw new Exception("签名校验失败");
+            }
+        } else {
+            byte[] signature = metrics.time(Stage.VERIFY, () -> rsa.recover(packet.getCipherSignature(), rsaKey.publicKey(), DIGEST_LENGTH));
+            byte[] digest = metrics.time(Stage.SHA256, () -> signatureDigest(packet));
+            if (!Arrays.equals(signature, digest)) {
+                throw new Exception("签名校验失败");
+            }
+        }
+        // 3. 解密 AES 密钥
+        byte[] plainKey = privateKeyOperation(Stage.RSA_UNWRAP, () -> rsa.decrypt(cipherKey, rsaKey.privateKey(), AES_KEY_LENGTH));
+        // 4. 解密并还原源数据
+        return metrics.time(Stage.AES_DECRYPT, () -> packetCipher.decrypt(cipherText, plainKey, mode, iv));
+    }
+
+    /**
+     * 会话握手
+     * 没有 token 或 token 没有 sessionId 时新建会话，会话密钥用 RSA 公钥加密、RSA 私钥签名后返回；
+     * 否则按 token 恢复会话：验证签名、RSA 私钥解密会话密钥后加入会话表，会话在本节点已存在时直接返回
+     * @param token 之前握手得到的结果，可以为 null
+     * @return 握手结果，客户端保存，会话不存在时重新提交
+     * @throws Exception 签名校验失败或会话已过期
+     */
+    public CipherSession openSession(CipherSession token) throws Exception {
+        if (token != null && token.getSessionId() != null && !token.getSessionId().isEmpty()) {
+            return resumeSession(token);
+        }
+        KeyVersion rsaKey = keyHolder.getActiveKey();
+        byte[] aesKey = cipher.generateKey();
+        byte[] macKey = new byte[MAC_KEY_LENGTH];
+        SECURE_RANDOM.nextBytes(macKey);
+        CryptoSession session = sessions.create(aesKey, macKey);
+
+        byte[] sessionKey = ByteBuffer.allocate(AES_KEY_LENGTH + MAC_KEY_LENGTH).put(aesKey).put(macKey).array();
+        byte[] cipherKey = metrics.time(Stage.RSA_WRAP, () -> rsa.encrypt(sessionKey, rsaKey.publicKey()));
+        long expiresAt = session.expiresAt().toEpochMilli();
+        byte[] digest = metrics.time(Stage.SHA256, () -> sessionDigest(session.id(), cipherKey, expiresAt));
+        byte[] cipherSignature = privateKeyOperation(Stage.SIGN, () -> rsa.sign(digest, rsaKey.privateKey()));
+
+        CipherSession result = new CipherSession();
+        result.setSessionId(session.id());
+        result.setCipherKey(base64.encode(cipherKey));
+        result.setCipherSignature(base64.encode(cipherSignature));
+        result.setKeyId(rsaKey.id());
+        result.setExpiresAt(expiresAt);
+        return result;
+    }
+
+    private CipherSession resumeSession(CipherSession token) throws Exception {
+        if (sessions.get(token.getSessionId()) != null) {
+            return token;
+        }
+        KeyVersion rsaKey = keyHolder.getKey(token.getKeyId());
+        byte[] cipherKey = base64.decode(token.getCipherKey());
+        byte[] signature = metrics.time(Stage.VERIFY, () -> rsa.recover(base64.decode(token.getCipherSignature()), rsaKey.publicKey(), DIGEST_LENGTH));
+        byte[] digest = metrics.time(Stage.SHA256, () -> sessionDigest(token.getSessionId(), cipherKey, token.getExpiresAt()));
+        if (!Arrays.equals(signature, digest)) {
+            throw new Exception("签名校验失败");
+        }
+        byte[] sessionKey = privateKeyOperation(Stage.RSA_UNWRAP, () -> rsa.decrypt(cipherKey, rsaKey.privateKey(), AES_KEY_LENGTH + MAC_KEY_LENGTH));
+        sessions.put(new CryptoSession(token.getSessionId(),
+                Arrays.copyOfRange(sessionKey, 0, AES_KEY_LENGTH),
+                new SimpleHMAC(Arrays.copyOfRange(sessionKey, AES_KEY_LENGTH, sessionKey.length)),
+                Instant.ofEpochMilli(token.getExpiresAt())));
+        return token;
+    }
+
+    /**
+     * 加密，带有会话 ID 时使用会话密钥，否则与 encrypt(byte[]) 相同
+     * @param plainText 原始数据
+     * @param sessionId 会话 ID，可以为 null
+     * @return Base64 形式的密文数据包
+     */
+    public CipherData encrypt(byte[] plainText, String sessionId) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            return encrypt(plainText);
+        }
+        return toCipherData(encryptSession(plainText, sessionId));
+    }
+
+    /**
+     * 使用会话密钥加密，只做 AES 加密和 HMAC-SHA256，不做 RSA 运算
+     * @param plainText 原始数据
+     * @param sessionId 会话 ID
+     * @return 密文数据包
+     * @throws IllegalArgumentException 会话不存在或已过期
+     */
+    public CipherPacket encryptSession(byte[] plainText, String sessionId) {
+        CryptoSession session = session(sessionId);
+        byte[] iv = cipher.generateIV();
+        byte[] cipherText = metrics.time(Stage.AES_ENCRYPT, () -> cipher.encrypt(plainText, session.aesKey(), DEFAULT_MODE, iv));
+        CipherPacket packet = new CipherPacket(cipherText, new byte[0], null, iv, DEFAULT_MODE, SIGNATURE_HMAC_SHA256);
+        packet.setCipherAlgorithm(cipher.algorithm());
+        packet.setSessionId(sessionId);
+        packet.setCipherSignature(metrics.time(Stage.HMAC, () -> session.mac().mac(macInput(packet))));
+        return packet;
+    }
+
+    /**
+     * 使用会话密钥解密，先校验 HMAC，再 AES 解密
+     */
+    private byte[] decryptSession(CipherPacket packet) throws Exception {
+        if (!SIGNATURE_HMAC_SHA256.equals(packet.getSignatureMode())) {
+            throw new IllegalArgumentException("会话消息不支持的签名方式: " + packet.getSignatureMode());
+        }
+        CryptoSession session = session(packet.getSessionId());
+        SymmetricCipher packetCipher = cipherOf(packet.getCipherAlgorithm());
+        byte[] cipherText = packet.getCipherText();
+        byte[] iv = packet.getCipherIv();
+        if (!metrics.time(Stage.HMAC, () -> session.mac().verify(packet.getCipherSignature(), macInput(packet)))) {
+            throw new Exception("签名校验失败");
+        }
+        return metrics.time(Stage.AES_DECRYPT, () -> packetCipher.decrypt(cipherText, session.aesKey(), packet.getCipherMode(), iv));
+    }
+
+    private CryptoSession session(String sessionId) {
+        CryptoSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("会话不存在或已过期，请重新握手: " + sessionId);
+        }
+        return session;
+    }
+
+    /**
+     * HMAC 的输入，覆盖解密时用到的所有字段：
+     *  签名方式、sessionId、keyId、对称加密算法、工作模式、IV、密钥密文、密文
+     * 每个字段前面加 4 字节长度，字段之间的边界是确定的，不能把一个字段的字节挪到相邻字段而不改变 HMAC；
+     * 没有的字段（例如会话消息的 keyId、密钥密文）按长度 0 计算
+     * 改动其中任何一个字段都会导致校验失败，不能通过修改算法、模式或密钥 ID 让解密走另一条路径
+     */
+    private static byte[][] macInput(CipherPacket packet) {
+        byte[][] fields = {
+                utf8(packet.getSignatureMode()),
+                utf8(packet.getSessionId()),
+                utf8(packet.getKeyId()),
+                utf8(packet.getCipherAlgorithm()),
+                {(byte) packet.getCipherMode()},
+                packet.getCipherIv() == null ? new byte[0] : packet.getCipherIv(),
+                packet.getCipherKey() == null ? new byte[0] : packet.getCipherKey(),
+                packet.getCipherText() == null ? new byte[0] : packet.getCipherText()
+        };
+        return lengthPrefixed(fields);
+    }
+
+    /**
+     * 每个字段前加 4 字节长度，字段之间的边界不会因为内容移动而产生歧义
+     */
+    private static byte[][] lengthPrefixed(byte[]... fields) {
+        byte[][] parts = new byte[fields.length * 2][];
+        for (int i = 0; i < fields.length; i++) {
+            parts[i * 2] = ByteBuffer.allocate(Integer.BYTES).putInt(fields[i].length).array();
+            parts[i * 2 + 1] = fields[i];
+        }
+        return parts;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 数据包 HMAC 密钥太短时容易被穷举，至少与会话的 HMAC 密钥一样长
+     */
+    private static SimpleHMAC newPacketMac(byte[] key) {
+        if (key.length < MAC_KEY_LENGTH) {
+            throw new IllegalArgumentException("crypto.signature.hmac-key 至少 " + MAC_KEY_LENGTH + " 字节，实际 " + key.length + " 字节");
+        }
+        return new SimpleHMAC(key);
+    }
+
+    /**
+     * 握手结果的签名摘要：SHA-256(sessionId + 会话密钥密文 + 过期时间)
+     */
+    private byte[] sessionDigest(String sessionId, byte[] cipherKey, long expiresAt) {
+        return hash.digest(sessionId.getBytes(StandardCharsets.US_ASCII), cipherKey, ByteBuffer.allocate(Long.BYTES).putLong(expiresAt).array());
+    }
+
+    /**
+     * 批量加密
+     * @param plainTexts 原始数据，按顺序加密
+     * @return 批量密文数据包，items 与 plainTexts 一一对应
+     */
+    public CipherBatch encryptBatch(List<byte[]> plainTexts) {
+        KeyVersion rsaKey = keyHolder.getActiveKey();
+        // 1. 整批共用一个 AES Key，每条消息使用各自的 IV 并行加密
+        byte[] aesKey = cipher.generateKey();
+        List<BatchItem> items = metrics.time(Stage.AES_ENCRYPT, () -> plainTexts.parallelStream()
+                .map(plainText -> {
+                    byte[] iv = cipher.generateIV();
+                    return new BatchItem(cipher.encrypt(plainText, aesKey, DEFAULT_MODE, iv), iv);
+                })
+                .toList());
+        // 2. RSA 加密 AES Key，整批只做一次
+        byte[] cipherKey = metrics.time(Stage.RSA_WRAP, () -> rsa.encrypt(aesKey, rsaKey.publicKey()));
+        // 3. 对整批生成一个数字签名
+        byte[] digest = metrics.time(Stage.SHA256, () -> batchDigest(items, cipherKey));
+        byte[] cipherSignature = privateKeyOperation(Stage.SIGN, () -> rsa.sign(digest, rsaKey.privateKey()));
+
+        CipherBatch batch = metrics.time(Stage.BASE64_ENCODE, () -> new CipherBatch(
+                base64.encode(cipherKey),
+                base64.encode(cipherSignature),
+                SimpleAES.modeName(DEFAULT_MODE),
+                items.parallelStream()
+                        .map(item -> {
+                            CipherData cipherData = new CipherData();
+                            cipherData.setCipherText(base64.encode(item.cipherText));
+                            cipherData.setCipherIv(base64.encode(item.iv));
+                            return cipherData;
+                        })
+                        .toList()
+        ));
+        batch.setCipherAlgorithm(cipher.algorithm());
+        batch.setKeyId(rsaKey.id());
+        return batch;
+    }
+
+    /**
+     * 批量解密
+     * @param batch 批量密文数据包
+     * @return 原始数据，与 batch.items 一一对应
+     * @throws Exception 签名校验失败
+     */
+    public List<byte[]> decryptBatch(CipherBatch batch) throws Exception {
+        // 1. 拆解批量数据包
+        int mode = SimpleAES.modeOf(batch.getCipherMode());
+        SymmetricCipher batchCipher = cipherOf(batch.getCipherAlgorithm());
+        KeyVersion rsaKey = keyHolder.getKey(batch.getKeyId());
+        byte[] cipherKey = metrics.time(Stage.BASE64_DECODE, () -> base64.decode(batch.getCipherKey()));
+        byte[] cipherSignature = metrics.time(Stage.BASE64_DECODE, () -> base64.decode(batch.getCipherSignature()));
+        List<BatchItem> items = metrics.time(Stage.BASE64_DECODE, () -> batch.getItems().parallelStream()
+                .map(cipherData -> new BatchItem(
+                        base64.decode(cipherData.getCipherText()),
+                        mode == SimpleAES.MODE_ECB ? new byte[0] : base64.decode(cipherData.getCipherIv())))
+                .toList());
+
+        // 2. 验证整批签名
+        byte[] signature = metrics.time(Stage.VERIFY, () -> rsa.recover(cipherSignature, rsaKey.publicKey(), DIGEST_LENGTH));
+        byte[] digest = metrics.time(Stage.SHA256, () -> batchDigest(items, cipherKey));
+        if (!Arrays.equals(signature, digest)) {
+            throw new Exception("签名校验失败");
+        }
+        // 3. 解密 AES 密钥，整批只做一次
+        byte[] plainKey = privateKeyOperation(Stage.RSA_UNWRAP, () -> rsa.decrypt(cipherKey, rsaKey.privateKey(), AES_KEY_LENGTH));
+        // 4. 并行解密各条消息
+        return metrics.time(Stage.AES_DECRYPT, () -> items.parallelStream()
+                .map(item -> batchCipher.decrypt(item.cipherText, plainKey, mode, item.iv))
+                .toList());
+    }
+
+    /**
+     * 批量数据包中的一条消息
+     */
+    private record BatchItem(byte[] cipherText, byte[] iv) {
+    }
+
+    /**
+     * 批次摘要：SHA-256(各条 SHA-256(IV + 密文) 依次拼接 + 密钥密文)
+     * 每条消息的摘要并行计算
+     */
+    private byte[] batchDigest(List<BatchItem> items, byte[] cipherKey) {
+        byte[][] parts = new byte[items.size() + 1][];
+        items.parallelStream()
+                .map(item -> hash.digest(item.iv, item.cipherText))
+                .toList()
+                .toArray(parts);
+        parts[items.size()] = cipherKey;
+        return hash.digest(parts);
+    }
+
+    /**
+     * 执行 RSA 私钥运算，超过 crypto.rsa.max-concurrency 时等待
+     * 排队的时间不计入该环节的耗时
+     */
+    private <T> T privateKeyOperation(Stage stage, Supplier<T> operation) {
+        privateKeyPermits.acquireUninterruptibly();
+        try {
+            return metrics.time(stage, operation);
+        } finally {
+            privateKeyPermits.release();
+        }
+    }
+
+    /**
+     * 按数据包中的算法查找对称加密实现，没有算法字段的旧数据包按 SIMPLE-AES 处理
+     * @throws IllegalArgumentException 算法不支持
+     */
+    private SymmetricCipher cipherOf(String algorithm) {
+        String name = algorithm == null || algorithm.isEmpty() ? SimpleSymmetricCipher.ALGORITHM : algorithm;
+        SymmetricCipher found = ciphers.get(name);
+        if (found == null) {
+            throw new IllegalArgumentException("不支持的加密算法: " + algorithm);
+        }
+        return found;
+    }
+
+    /**
+     * 转换为 Base64 形式的数据包
+     * @param packet 密文数据包
+     * @return Base64 形式的密文数据包
+     */
+    public CipherData toCipherData(CipherPacket packet) {
+        CipherData cipherData = metrics.time(Stage.BASE64_ENCODE, () -> new CipherData(
+                base64.encode(packet.getCipherText()),
+                base64.encode(packet.getCipherKey()),
+                base64.encode(packet.getCipherSignature()),
+                base64.encode(packet.getCipherIv()),
+                SimpleAES.modeName(packet.getCipherMode())
+        ));
+        cipherData.setSignatureMode(packet.getSignatureMode());
+        cipherData.setCipherAlgorithm(packet.getCipherAlgorithm());
+        cipherData.setKeyId(packet.getKeyId());
+        cipherData.setSessionId(packet.getSessionId());
+        return cipherData;
+    }
+
+    /**
+     * 从 Base64 形式的数据包还原，旧数据包没有 IV 和工作模式，按 ECB 处理
+     * @param cipherData Base64 形式的密文数据包
+     * @return 密文数据包
+     */
+    public CipherPacket toCipherPacket(CipherData cipherData) {
+        int mode = SimpleAES.modeOf(cipherData.getCipherMode());
+        CipherPacket packet = metrics.time(Stage.BASE64_DECODE, () -> new CipherPacket(
+                base64.decode(cipherData.getCipherText()),
+                base64.decode(cipherData.getCipherKey()),
+                base64.decode(cipherData.getCipherSignature()),
+                mode == SimpleAES.MODE_ECB ? new byte[0] : base64.decode(cipherData.getCipherIv()),
+                mode,
+                cipherData.getSignatureMode()
+        ));
+        packet.setCipherAlgorithm(cipherData.getCipherAlgorithm());
+        packet.setKeyId(cipherData.getKeyId());
+        packet.setSessionId(cipherData.getSessionId());
+        return packet;
+    }
+
+    /**
+     * 流式加密
+     * 按块读取原始数据，CTR 模式加密后直接写出，签名在数据结束后追加
+     * @param in 原始数据
+     * @param out 流式格式的密文
+     * @throws IOException
+     */
+    public void encryptStream(InputStream in, OutputStream out) throws IOException {
+        StreamEncryptor encryptor = newStreamEncryptor();
+        byte[] buffer = new byte[STREAM_CHUNK_SIZE];
+        int length;
+        while ((length = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+            out.write(encryptor.update(buffer, 0, length));
+        }
+        out.write(encryptor.finish());
+        out.flush();
+    }
+
+    /**
+     * 流式解密
+     * 按块读取密文，解密后直接写出，数据结束后再校验签名
+     * 签名在最后才能校验，校验失败时原始数据已经部分写出，此时抛出异常中断输出，调用方需要丢弃已收到的数据
+     * @param in 流式格式的密文
+     * @param out 原始数据
+     * @throws IOException 格式错误或签名校验失败
+     */
+    public void decryptStream(InputStream in, OutputStream out) throws IOException {
+        StreamDecryptor decryptor = newStreamDecryptor();
+        byte[] buffer = new byte[STREAM_CHUNK_SIZE];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            out.write(decryptor.update(buffer, 0, length));
+        }
+        out.write(decryptor.finish());
+        out.flush();
+    }
+
+    /**
+     * 开始一次流式加密，使用当前激活的 RSA 密钥
+     */
+    public StreamEncryptor newStreamEncryptor() {
+        return new StreamEncryptor();
+    }
+
+    /**
+     * 开始一次流式解密
+     */
+    public StreamDecryptor newStreamDecryptor() {
+        return new StreamDecryptor();
+    }
+
+    /**
+     * 流式格式的增量处理过程，输入分任意多次交给 update，每次返回可以写出的输出，输入全部交完后调用 finish
+     * 本身不读取输入，也不等待数据：servlet 接口从 InputStream 读出后调用，reactive 接口对请求体的每个 DataBuffer 调用
+     * 同一个对象不能并发调用
+     */
+    public interface StreamProcessor {
+
+        /**
+         * @param data 新到的输入
+         * @return 这次可以写出的输出，可能为空数组
+         * @throws IOException 格式错误或签名校验失败
+         */
+        byte[] update(byte[] data, int offset, int length) throws IOException;
+
+        /**
+         * @return 剩余的输出
+         * @throws IOException 数据流不完整
+         */
+        byte[] finish() throws IOException;
+    }
+
+    /**
+     * 流式加密，头部随第一次输出写出
+     * 数据凑满 64KB 才加密输出一块，剩余不满一块的数据在 finish 时输出，随后是结束标记和签名
+     */
+    public final class StreamEncryptor implements StreamProcessor {
+
+        private final KeyVersion rsaKey;
+        private final AESKey key;
+        private final byte[] iv;
+        private final byte[] cipherKey;
+        private final SimpleSHA digest = new SimpleSHA();
+        // 还没凑满一块的原始数据
+        private final byte[] buffer = new byte[STREAM_CHUNK_SIZE];
+        private int buffered;
+        private long consumed;
+        private boolean headerWritten;
+
+        private StreamEncryptor() {
+            rsaKey = keyHolder.getActiveKey();
+            // 密钥和 IV 由配置的实现生成，两种实现都使用 SecureRandom，长度都是 16 字节
+            byte[] aesKey = cipher.generateKey();
+            iv = cipher.generateIV();
+            key = new AESKey(aesKey);
+            cipherKey = metrics.time(Stage.RSA_WRAP, () -> rsa.encrypt(aesKey, rsaKey.publicKey()));
+        }
+
+        /**
+         * @return 流式格式的头部：魔数、工作模式、密钥 ID、IV、密钥密文
+         */
+        private byte[] header() {
+            byte[] keyId = rsaKey.id().getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer header = ByteBuffer.allocate(4 + 1 + 1 + keyId.length + 2 + iv.length + 2 + cipherKey.length);
+            header.putInt(STREAM_MAGIC);
+            header.put((byte) SimpleAES.MODE_CTR);
+            header.put((byte) keyId.length);
+            header.put(keyId);
+            putShortBytes(header, iv);
+            putShortBytes(header, cipherKey);
+            return header.array();
+        }
+
+        @Override
+        public byte[] update(byte[] data, int offset, int length) {
+            ByteArrayOutputStream out = output();
+            while (length > 0) {
+                int n = Math.min(length, STREAM_CHUNK_SIZE - buffered);
+                System.arraycopy(data, offset, buffer, buffered, n);
+                buffered += n;
+                offset += n;
+                length -= n;
+                if (buffered == STREAM_CHUNK_SIZE) {
+                    writeChunk(out);
+                }
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public byte[] finish() {
+            ByteArrayOutputStream out = output();
+            if (buffered > 0) {
+                writeChunk(out);
+            }
+            writeInt(out, 0);
+            digest.update(cipherKey);
+            digest.update(iv);
+            byte[] signature = privateKeyOperation(Stage.SIGN, () -> rsa.sign(digest.digest(), rsaKey.privateKey()));
+            out.write(signature.length >>> 8);
+            out.write(signature.length);
+            out.writeBytes(signature);
+            return out.toByteArray();
+        }
+
+        private ByteArrayOutputStream output() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!headerWritten) {
+                out.writeBytes(header());
+                headerWritten = true;
+            }
+            return out;
+        }
+
+        private void writeChunk(ByteArrayOutputStream out) {
+            SimpleAES.ctr(key, iv, consumed / 16, buffer, 0, buffered, buffer, 0);
+            digest.update(buffer, 0, buffered);
+            writeInt(out, buffered);
+            out.write(buffer, 0, buffered);
+            consumed += buffered;
+            buffered = 0;
+        }
+    }
+
+    /**
+     * 流式解密，每次返回已经能解密的原始数据
+     * 头部、数据块不完整时先缓存，等后续数据到达再处理；签名收到时就校验，失败时 update 抛出异常
+     */
+    public final class StreamDecryptor implements StreamProcessor {
+
+        private enum State { HEADER, CHUNK_LENGTH, CHUNK, SIGNATURE, DONE }
+
+        // 尚未处理的密文为 pending[start, end)
+        private byte[] pending = new byte[STREAM_CHUNK_SIZE + 4];
+        private int start;
+        private int end;
+        private State state = State.HEADER;
+
+        private KeyVersion rsaKey;
+        private AESKey key;
+        private byte[] iv;
+        private byte[] cipherKey;
+        private final SimpleSHA digest = new SimpleSHA();
+        private int chunkLength;
+        private boolean lastChunk;
+        private long consumed;
+
+        private StreamDecryptor() {
+        }
+
+        @Override
+        public byte[] update(byte[] data, int offset, int length) throws IOException {
+            append(data, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            while (step(out)) {
+                // 处理到缓存的数据不够下一步为止
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * 原始数据在 update 中已经全部输出，这里只检查数据流是否完整
+         * @throws IOException 数据流在签名之前就结束了
+         */
+        @Override
+        public byte[] finish() throws IOException {
+            if (state != State.DONE) {
+                throw new IOException("数据流不完整");
+            }
+            return new byte[0];
+        }
+
+        /**
+         * 处理缓存中的下一个字段
+         * @return 缓存的数据不够处理下一个字段时返回 false
+         */
+        private boolean step(ByteArrayOutputStream out) throws IOException {
+            int available = end - start;
+            switch (state) {
+                case HEADER -> {
+                    ByteBuffer header = ByteBuffer.wrap(pending, start, available);
+                    try {
+                        readHeader(header);
+                    } catch (BufferUnderflowException e) {
+                        return false;
+                    }
+                    start = header.position();
+                    state = State.CHUNK_LENGTH;
+                }
+                case CHUNK_LENGTH -> {
+                    if (available < 4) {
+                        return false;
+                    }
+                    int length = ByteBuffer.wrap(pending, start, 4).getInt();
+                    start += 4;
+                    if (length == 0) {
+                        digest.update(cipherKey);
+                        digest.update(iv);
+                        state = State.SIGNATURE;
+                        return true;
+                    }
+                    // 不满 64KB 的块只能是最后一块
+                    if (lastChunk || length < 0 || length > STREAM_CHUNK_SIZE) {
+                        throw new IOException("数据块长度错误: " + length);
+                    }
+                    lastChunk = length < STREAM_CHUNK_SIZE;
+                    chunkLength = length;
+                    state = State.CHUNK;
+                }
+                case CHUNK -> {
+                    if (available < chunkLength) {
+                        return false;
+                    }
+                    digest.update(pending, start, chunkLength);
+                    SimpleAES.ctr(key, iv, consumed / 16, pending, start, chunkLength, pending, start);
+                    out.write(pending, start, chunkLength);
+                    start += chunkLength;
+                    consumed += chunkLength;
+                    state = State.CHUNK_LENGTH;
+                }
+                case SIGNATURE -> {
+                    if (available < 2 || available < 2 + ((pending[start] & 0xff) << 8 | pending[start + 1] & 0xff)) {
+                        return false;
+                    }
+                    ByteBuffer field = ByteBuffer.wrap(pending, start, available);
+                    byte[] cipherSignature = getShortBytes(field);
+                    start = field.position();
+                    byte[] signature = metrics.time(Stage.VERIFY, () -> rsa.recover(cipherSignature, rsaKey.publicKey(), DIGEST_LENGTH));
+                    if (!Arrays.equals(signature, digest.digest())) {
+                        throw new IOException("签名校验失败");
+                    }
+                    state = State.DONE;
+                }
+                case DONE -> {
+                    if (available > 0) {
+                        throw new IOException("签名之后还有多余的数据");
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 解析头部并解密 AES Key，头部不完整时抛出 BufferUnderflowException，不改变状态
+         */
+        private void readHeader(ByteBuffer header) throws IOException {
+            int magic = header.getInt();
+            if (magic != STREAM_MAGIC && magic != STREAM_MAGIC_V1) {
+                throw new IOException("不是有效的加密数据流");
+            }
+            int mode = header.get() & 0xff;
+            if (mode != SimpleAES.MODE_CTR) {
+                throw new IOException("数据流只支持 CTR 模式");
+            }
+            String keyId = null;
+            if (magic == STREAM_MAGIC) {
+                byte[] id = new byte[header.get() & 0xff];
+                header.get(id);
+                keyId = new String(id, StandardCharsets.US_ASCII);
+            }
+            byte[] iv = getShortBytes(header);
+            byte[] cipherKey = getShortBytes(header);
+
+            KeyVersion rsaKey = keyHolder.getKey(keyId);
+            this.key = new AESKey(privateKeyOperation(Stage.RSA_UNWRAP, () -> rsa.decrypt(cipherKey, rsaKey.privateKey(), AES_KEY_LENGTH)));
+            this.rsaKey = rsaKey;
+            this.iv = iv;
+            this.cipherKey = cipherKey;
+        }
+
+        /**
+         * 把新到的密文追加到缓存，缓存不够时先把未处理的部分移到开头，仍然不够再扩容
+         */
+        private void append(byte[] data, int offset, int length) {
+            if (pending.length - end < length) {
+                int remaining = end - start;
+                byte[] target = remaining + length > pending.length ? new byte[Math.max(pending.length * 2, remaining + length)] : pending;
+                System.arraycopy(pending, start, target, 0, remaining);
+                pending = target;
+                start = 0;
+                end = remaining;
+            }
+            System.arraycopy(data, offset, pending, end, length);
+            end += length;
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void putShortBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] getShortBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 按签名方式计算数据包的签名摘要
+     * 摘要覆盖签名方式、加密算法、工作模式、密文、密钥密文和 IV，与 macInput 一样每个字段带长度前缀；
+     * MERKLE-SHA256 对密文计算树哈希，密钥密文、IV 和带长度前缀的其余字段作为最后三个叶子
+     * 旧数据包没有签名方式，摘要与旧版本的 sha256(cipherText + cipherKey) 一致，不覆盖其他字段，
+     * 所以只接受旧版本能生成的 ECB 模式 SIMPLE-AES 数据包，不能通过去掉签名方式改用其他模式或算法解密
+     * @throws IllegalArgumentException 签名方式不支持，或旧数据包的模式、算法不是旧版本的
+     */
+    private byte[] signatureDigest(CipherPacket packet) {
+        String signatureMode = packet.getSignatureMode();
+        byte[] cipherText = packet.getCipherText();
+        byte[] cipherKey = packet.getCipherKey();
+        byte[] iv = packet.getCipherIv() == null ? new byte[0] : packet.getCipherIv();
+        String algorithm = packet.getCipherAlgorithm();
+        if (signatureMode == null || signatureMode.isEmpty()) {
+            if (packet.getCipherMode() != SimpleAES.MODE_ECB
+                    || !(algorithm == null || algorithm.isEmpty() || SimpleSymmetricCipher.ALGORITHM.equals(algorithm))) {
+                throw new IllegalArgumentException("没有签名方式的数据包只支持 ECB 模式的 " + SimpleSymmetricCipher.ALGORITHM);
+            }
+            return hash.digest(cipherText, cipherKey, iv);
+        }
+        byte[][] header = lengthPrefixed(utf8(signatureMode), utf8(algorithm), new byte[]{(byte) packet.getCipherMode()});
+        if (SIGNATURE_SHA256.equals(signatureMode)) {
+            byte[][] body = lengthPrefixed(cipherText, cipherKey, iv);
+            byte[][] parts = Arrays.copyOf(header, header.length + body.length);
+            System.arraycopy(body, 0, parts, header.length, body.length);
+            return hash.digest(parts);
+        }
+        if (SIGNATURE_MERKLE_SHA256.equals(signatureMode)) {
+            ByteArrayOutputStream fields = new ByteArrayOutputStream();
+            for (byte[] part : header) {
+                fields.writeBytes(part);
+            }
+            return hash.treeHash(cipherText, cipherKey, iv, fields.toByteArray());
+        }
+        throw new IllegalArgumentException("不支持的签名方式: " + signatureMode);
+    }
+}
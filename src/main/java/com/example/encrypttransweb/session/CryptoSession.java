@@ -0,0 +1,24 @@
+package com.example.encrypttransweb.session;
+
+import com.example.encrypttransweb.utils.SimpleHMAC;
+
+import java.time.Instant;
+
+/**
+ * 一个会话的对称密钥，握手时生成，会话期间所有消息共用
+ * @param id 会话 ID
+ * @param aesKey AES 密钥
+ * @param mac 用 HMAC 密钥创建的 SimpleHMAC，创建时已压缩好 ipad、opad 块，会话期间的消息共用
+ * @param expiresAt 过期时间
+ */
+public record CryptoSession(String id, byte[] aesKey, SimpleHMAC mac, Instant expiresAt) {
+
+    /**
+     * 是否已过期
+     * @param now 当前时间
+     * @return 是否已过期
+     */
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
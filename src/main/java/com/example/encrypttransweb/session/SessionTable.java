@@ -0,0 +1,128 @@
+package com.example.encrypttransweb.session;
+
+import com.example.encrypttransweb.utils.SimpleHMAC;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 会话密钥表，只保存在内存中
+ * 会话在握手 crypto.session.ttl 后过期，查找时遇到过期会话直接移除
+ * 最多保存 crypto.session.max-sessions 个会话，满了之后先清理过期会话，仍然满时移除最早过期的会话，
+ * 被移除会话的客户端需要重新握手，或者用握手结果恢复会话
+ * <p>
+ * 查找不加锁；加入会话（握手，本身要做 RSA 运算）时加锁，按过期时间排序的队列保证每次只移除需要的数量，
+ * 队列头部就是最早过期的会话，不需要遍历整个表；已被查找时移除或被替换的会话留在队列中，轮到时直接丢弃
+ * 当前会话数通过 crypto.sessions 指标暴露
+ */
+@Component
+public class SessionTable {
+
+    // 会话 ID 的随机字节数
+    private static final int SESSION_ID_LENGTH = 16;
+
+    private final Map<String, CryptoSession> sessions = new ConcurrentHashMap<>();
+    // 按过期时间排序，只在持有 this 锁时访问
+    private final PriorityQueue<CryptoSession> expiryQueue = new PriorityQueue<>(Comparator.comparing(CryptoSession::expiresAt));
+    private final SecureRandom random = new SecureRandom();
+    private final Duration ttl;
+    private final int maxSessions;
+
+    public SessionTable(MeterRegistry registry,
+                        @Value("${crypto.session.ttl:30m}") Duration ttl,
+                        @Value("${crypto.session.max-sessions:10000}") int maxSessions) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("crypto.session.ttl 必须大于 0: " + ttl);
+        }
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("crypto.session.max-sessions 必须大于 0: " + maxSessions);
+        }
+        this.ttl = ttl;
+        this.maxSessions = maxSessions;
+        Gauge.builder("crypto.sessions", sessions, Map::size)
+                .description("会话密钥表中的会话数")
+                .register(registry);
+    }
+
+    /**
+     * 新建会话
+     * @param aesKey AES 密钥
+     * @param macKey HMAC 密钥
+     * @return 会话
+     */
+    public CryptoSession create(byte[] aesKey, byte[] macKey) {
+        byte[] id = new byte[SESSION_ID_LENGTH];
+        random.nextBytes(id);
+        return put(new CryptoSession(HexFormat.of().formatHex(id), aesKey, new SimpleHMAC(macKey), Instant.now().plus(ttl)));
+    }
+
+    /**
+     * 加入会话，用于在其他节点恢复握手时建立的会话
+     * @param session 会话
+     * @return 会话
+     * @throws IllegalArgumentException 会话已过期
+     */
+    public synchronized CryptoSession put(CryptoSession session) {
+        Instant now = Instant.now();
+        if (session.isExpired(now)) {
+            throw new IllegalArgumentException("会话已过期: " + session.id());
+        }
+        removeExpired(now);
+        if (!sessions.containsKey(session.id())) {
+            while (sessions.size() >= maxSessions && !expiryQueue.isEmpty()) {
+                removeFromQueue(expiryQueue.poll());
+            }
+        }
+        sessions.put(session.id(), session);
+        expiryQueue.add(session);
+        return session;
+    }
+
+    /**
+     * 查找会话
+     * @param id 会话 ID
+     * @return 会话，不存在或已过期时返回 null
+     */
+    public CryptoSession get(String id) {
+        CryptoSession session = sessions.get(id);
+        if (session != null && session.isExpired(Instant.now())) {
+            sessions.remove(id, session);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * 当前会话数
+     * @return 会话数
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * 从队列头部移除已过期的会话
+     */
+    private void removeExpired(Instant now) {
+        while (!expiryQueue.isEmpty() && expiryQueue.peek().isExpired(now)) {
+            removeFromQueue(expiryQueue.poll());
+        }
+    }
+
+    /**
+     * 队列中取出的会话仍是表中的同一个会话时才从表中移除，已被移除或替换的直接丢弃
+     */
+    private void removeFromQueue(CryptoSession session) {
+        sessions.remove(session.id(), session);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.encrypttransweb.utils;
+
+/**
+ * AES 密钥
+ * 创建时一次性完成密钥扩展，同时计算出解密使用的逆轮密钥，之后可以在多个分组、多条消息之间重复使用
+ * 不可变对象，可以在多线程之间共享
+ */
+public final class AESKey {
+
+    // 加密轮密钥，共 ROUNDS + 1 轮，每轮 16 字节
+    final int[] encryptRoundKeys;
+    // 解密轮密钥，第 1 ~ ROUNDS-1 轮预先做过逆列混合（等价逆密码）
+    final int[] decryptRoundKeys;
+    // 按 4 字节打包成 32 位整数的轮密钥，供 FastAES 使用
+    final int[] encryptRoundWords;
+    final int[] decryptRoundWords;
+
+    private final byte[] key;
+
+    public AESKey(byte[] key) {
+        this.key = key.clone();
+        this.encryptRoundKeys = SimpleAES.keyExpansion(key);
+        this.decryptRoundKeys = SimpleAES.inverseKeyExpansion(encryptRoundKeys);
+        this.encryptRoundWords = toWords(encryptRoundKeys);
+        this.decryptRoundWords = toWords(decryptRoundKeys);
+    }
+
+    private static int[] toWords(int[] roundKeys) {
+        int[] words = new int[roundKeys.length / 4];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = (roundKeys[i * 4] << 24) | (roundKeys[i * 4 + 1] << 16) | (roundKeys[i * 4 + 2] << 8) | roundKeys[i * 4 + 3];
+        }
+        return words;
+    }
+
+    /**
+     * 原始密钥
+     * @return 原始密钥字节数组的副本
+     */
+    public byte[] getEncoded() {
+        return key.clone();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.encrypttransweb.utils;
+
+/**
+ * AES 查表（T-table）实现
+ * 与 SimpleAES 是同一个算法，输出逐字节一致，只是换了一种更快的计算方式：
+ *  1. 状态不再是 16 个 int 各存一个字节，而是 4 个 32 位整数，每个整数存 4 个字节
+ *  2. 字节代换、行移位、列混合三步合并成查表：预先算好每个字节经过 S 盒再乘上列混合系数的结果，
+ *     一轮运算就只剩 16 次查表和异或，不再需要逐字节调用 mul2、mul3
+ *  3. 解密使用等价逆密码，逆字节代换、逆行移位、逆列混合同样合并成查表，轮密钥使用 AESKey 中预先计算的逆轮密钥
+ * <p>
+ * SimpleAES 的行移位和列混合作用在同一组 4 个连续字节上，所以这里的 4 个整数之间互不影响，
+ * 行移位只是把每个整数内部的字节循环左移（解密时右移）对应的位数
+ */
+public class FastAES {
+
+    private static final int BLOCK_SIZE = SimpleAES.BLOCK_SIZE;
+    private static final int ROUNDS = SimpleAES.ROUNDS;
+
+    // 加密表：TE0[x] = (2·S[x], S[x], S[x], 3·S[x])，TE1 ~ TE3 依次循环右移 8 位
+    private static final int[] TE0 = new int[256];
+    private static final int[] TE1 = new int[256];
+    private static final int[] TE2 = new int[256];
+    private static final int[] TE3 = new int[256];
+    // 解密表：TD0[x] = (14·S'[x], 9·S'[x], 13·S'[x], 11·S'[x])，S' 为逆 S 盒，TD1 ~ TD3 依次循环右移 8 位
+    private static final int[] TD0 = new int[256];
+    private static final int[] TD1 = new int[256];
+    private static final int[] TD2 = new int[256];
+    private static final int[] TD3 = new int[256];
+    // 最后一轮只有字节代换，直接使用 S 盒
+    private static final int[] S_BOX = SimpleAES.S_BOX;
+    private static final int[] INV_S_BOX = SimpleAES.INV_S_BOX;
+
+    static {
+        for (int x = 0; x < 256; x++) {
+            int s = S_BOX[x];
+            int te = (SimpleAES.mul2(s) << 24) | (s << 16) | (s << 8) | SimpleAES.mul3(s);
+            TE0[x] = te;
+            TE1[x] = Integer.rotateRight(te, 8);
+            TE2[x] = Integer.rotateRight(te, 16);
+            TE3[x] = Integer.rotateRight(te, 24);
+
+            int si = INV_S_BOX[x];
+            int td = (SimpleAES.mul14(si) << 24) | (SimpleAES.mul9(si) << 16) | (SimpleAES.mul13(si) << 8) | SimpleAES.mul11(si);
+            TD0[x] = td;
+            TD1[x] = Integer.rotateRight(td, 8);
+            TD2[x] = Integer.rotateRight(td, 16);
+            TD3[x] = Integer.rotateRight(td, 24);
+        }
+    }
+
+    /**
+     * 加密，填充方式与 SimpleAES 相同
+     *
+     * @param input 明文
+     * @param key 密钥
+     * @return 密文
+     */
+    public static byte[] encrypt(byte[] input, AESKey key) {
+        input = SimpleAES.pad(input);
+        byte[] output = new byte[input.length];
+        for (int offset = 0; offset + BLOCK_SIZE <= input.length; offset += BLOCK_SIZE) {
+            encryptBlock(input, offset, output, offset, key);
+        }
+        return output;
+    }
+
+    /**
+     * 解密，填充方式与 SimpleAES 相同
+     *
+     * @param input 密文
+     * @param key 密钥
+     * @return 明文
+     */
+    public static byte[] decrypt(byte[] input, AESKey key) {
+        byte[] output = new byte[input.length];
+        for (int offset = 0; offset + BLOCK_SIZE <= input.length; offset += BLOCK_SIZE) {
+            decryptBlock(input, offset, output, offset, key);
+        }
+        return SimpleAES.unpad(output);
+    }
+
+    /**
+     * 加密单个分组
+     *
+     * @param in 输入
+     * @param inOffset 输入起始位置
+     * @param out 输出，可以与输入是同一个数组
+     * @param outOffset 输出起始位置
+     * @param key 密钥
+     */
+    public static void encryptBlock(byte[] in, int inOffset, byte[] out, int outOffset, AESKey key) {
+        int[] rk = key.encryptRoundWords;
+
+        int s0 = getInt(in, inOffset) ^ rk[0];
+        int s1 = getInt(in, inOffset + 4) ^ rk[1];
+        int s2 = getInt(in, inOffset + 8) ^ rk[2];
+        int s3 = getInt(in, inOffset + 12) ^ rk[3];
+
+        int k = 4;
+        for (int round = 1; round < ROUNDS; round++) {
+            // 第 g 个整数内部循环左移 g 个字节，再做列混合
+            int t0 = TE0[s0 >>> 24] ^ TE1[(s0 >>> 16) & 0xff] ^ TE2[(s0 >>> 8) & 0xff] ^ TE3[s0 & 0xff] ^ rk[k];
+            int t1 = TE0[(s1 >>> 16) & 0xff] ^ TE1[(s1 >>> 8) & 0xff] ^ TE2[s1 & 0xff] ^ TE3[s1 >>> 24] ^ rk[k + 1];
+            int t2 = TE0[(s2 >>> 8) & 0xff] ^ TE1[s2 & 0xff] ^ TE2[s2 >>> 24] ^ TE3[(s2 >>> 16) & 0xff] ^ rk[k + 2];
+            int t3 = TE0[s3 & 0xff] ^ TE1[s3 >>> 24] ^ TE2[(s3 >>> 16) & 0xff] ^ TE3[(s3 >>> 8) & 0xff] ^ rk[k + 3];
+            s0 = t0;
+            s1 = t1;
+            s2 = t2;
+            s3 = t3;
+            k += 4;
+        }
+
+        // 最后一轮没有列混合
+        int t0 = (S_BOX[s0 >>> 24] << 24) | (S_BOX[(s0 >>> 16) & 0xff] << 16) | (S_BOX[(s0 >>> 8) & 0xff] << 8) | S_BOX[s0 & 0xff];
+        int t1 = (S_BOX[(s1 >>> 16) & 0xff] << 24) | (S_BOX[(s1 >>> 8) & 0xff] << 16) | (S_BOX[s1 & 0xff] << 8) | S_BOX[s1 >>> 24];
+        int t2 = (S_BOX[(s2 >>> 8) & 0xff] << 24) | (S_BOX[s2 & 0xff] << 16) | (S_BOX[s2 >>> 24] << 8) | S_BOX[(s2 >>> 16) & 0xff];
+        int t3 = (S_BOX[s3 & 0xff] << 24) | (S_BOX[s3 >>> 24] << 16) | (S_BOX[(s3 >>> 16) & 0xff] << 8) | S_BOX[(s3 >>> 8) & 0xff];
+
+        putInt(out, outOffset, t0 ^ rk[k]);
+        putInt(out, outOffset + 4, t1 ^ rk[k + 1]);
+        putInt(out, outOffset + 8, t2 ^ rk[k + 2]);
+        putInt(out, outOffset + 12, t3 ^ rk[k + 3]);
+    }
+
+    /**
+     * 解密单个分组
+     *
+     * @param in 输入
+     * @param inOffset 输入起始位置
+     * @param out 输出，可以与输入是同一个数组
+     * @param outOffset 输出起始位置
+     * @param key 密钥
+     */
+    public static void decryptBlock(byte[] in, int inOffset, byte[] out, int outOffset, AESKey key) {
+        int[] rk = key.decryptRoundWords;
+
+        int k = ROUNDS * 4;
+        int s0 = getInt(in, inOffset) ^ rk[k];
+        int s1 = getInt(in, inOffset + 4) ^ rk[k + 1];
+        int s2 = getInt(in, inOffset + 8) ^ rk[k + 2];
+        int s3 = getInt(in, inOffset + 12) ^ rk[k + 3];
+
+        for (int round = ROUNDS - 1; round > 0; round--) {
+            k -= 4;
+            // 第 g 个整数内部循环右移 g 个字节，再做逆列混合
+            int t0 = TD0[s0 >>> 24] ^ TD1[(s0 >>> 16) & 0xff] ^ TD2[(s0 >>> 8) & 0xff] ^ TD3[s0 & 0xff] ^ rk[k];
+            int t1 = TD0[s1 & 0xff] ^ TD1[s1 >>> 24] ^ TD2[(s1 >>> 16) & 0xff] ^ TD3[(s1 >>> 8) & 0xff] ^ rk[k + 1];
+            int t2 = TD0[(s2 >>> 8) & 0xff] ^ TD1[s2 & 0xff] ^ TD2[s2 >>> 24] ^ TD3[(s2 >>> 16) & 0xff] ^ rk[k + 2];
+            int t3 = TD0[(s3 >>> 16) & 0xff] ^ TD1[(s3 >>> 8) & 0xff] ^ TD2[s3 & 0xff] ^ TD3[s3 >>> 24] ^ rk[k + 3];
+            s0 = t0;
+            s1 = t1;
+            s2 = t2;
+            s3 = t3;
+        }
+
+        // 最后一轮没有逆列混合
+        int t0 = (INV_S_BOX[s0 >>> 24] << 24) | (INV_S_BOX[(s0 >>> 16) & 0xff] << 16) | (INV_S_BOX[(s0 >>> 8) & 0xff] << 8) | INV_S_BOX[s0 & 0xff];
+        int t1 = (INV_S_BOX[s1 & 0xff] << 24) | (INV_S_BOX[s1 >>> 24] << 16) | (INV_S_BOX[(s1 >>> 16) & 0xff] << 8) | INV_S_BOX[(s1 >>> 8) & 0xff];
+        int t2 = (INV_S_BOX[(s2 >>> 8) & 0xff] << 24) | (INV_S_BOX[s2 & 0xff] << 16) | (INV_S_BOX[s2 >>> 24] << 8) | INV_S_BOX[(s2 >>> 16) & 0xff];
+        int t3 = (INV_S_BOX[(s3 >>> 16) & 0xff] << 24) | (INV_S_BOX[(s3 >>> 8) & 0xff] << 16) | (INV_S_BOX[s3 & 0xff] << 8) | INV_S_BOX[s3 >>> 24];
+
+        putInt(out, outOffset, t0 ^ rk[0]);
+        putInt(out, outOffset + 4, t1 ^ rk[1]);
+        putInt(out, outOffset + 8, t2 ^ rk[2]);
+        putInt(out, outOffset + 12, t3 ^ rk[3]);
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return (bytes[offset] << 24) | ((bytes[offset + 1] & 0xff) << 16) | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.encrypttransweb.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * 基于 SimpleSHA 的 Merkle 树哈希
+ * <p>
+ * 普通 SHA-256 每个块都依赖上一个块的结果，只能单线程从头算到尾。
+ * 树哈希把数据切成固定大小的块，每个块单独计算哈希（叶子），再两两合并计算上一层的哈希，直到只剩一个根哈希。
+ * 叶子之间互不依赖，可以在 ForkJoin 线程池上并行计算，数据越大，能用上的核越多。
+ * <p>
+ * 树的结构参考 RFC 6962：
+ *  叶子哈希 = SHA-256(0x00 + 数据块)
+ *  节点哈希 = SHA-256(0x01 + 左子树哈希 + 右子树哈希)
+ *  n 个叶子时，左子树包含前 k 个叶子，k 为小于 n 的最大的 2 的幂，剩余的叶子组成右子树
+ * 叶子和节点使用不同的前缀，避免把节点哈希伪造成叶子数据
+ * 结果与 SHA-256 不同，数据包中必须标明使用了树哈希，校验方才能用同样的方式计算
+ * <p>
+ * 默认使用 SimpleSHA 计算各节点的哈希，也可以传入其它 SHA-256 实现（例如 JDK 的 MessageDigest），结果相同
+ */
+public class MerkleSHA {
+
+    /**
+     * 增量计算的 SHA-256，每个实例只计算一次
+     */
+    public interface Digest {
+        void update(byte[] input, int offset, int length);
+
+        byte[] digest();
+    }
+
+    private static final Supplier<Digest> SIMPLE_SHA = () -> {
+        SimpleSHA sha = new SimpleSHA();
+        return new Digest() {
+            @Override
+            public void update(byte[] input, int offset, int length) {
+                sha.update(input, offset, length);
+            }
+
+            @Override
+            public byte[] digest() {
+                return sha.digest();
+            }
+        };
+    };
+
+    // 叶子数据块大小
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[] LEAF_PREFIX = {0x00};
+    private static final byte[] NODE_PREFIX = {0x01};
+    // 叶子数量不超过这个值时直接在当前线程计算
+    private static final int SEQUENTIAL_LEAVES = 4;
+
+    /**
+     * 计算树哈希
+     * data 按 CHUNK_SIZE 切分成多个叶子，trailers 中的每个数组各自作为一个叶子追加在后面
+     *
+     * @param data 主体数据
+     * @param trailers 追加的数据
+     * @return 根哈希
+     */
+    public static byte[] treeHash(byte[] data, byte[]... trailers) {
+        return treeHash(SIMPLE_SHA, data, trailers);
+    }
+
+    /**
+     * 使用指定的 SHA-256 实现计算树哈希
+     *
+     * @param digests 每次调用返回一个新的 SHA-256 实例
+     * @param data 主体数据
+     * @param trailers 追加的数据
+     * @return 根哈希
+     */
+    public static byte[] treeHash(Supplier<Digest> digests, byte[] data, byte[]... trailers) {
+        int dataLeaves = (data.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Leaves leaves = new Leaves(digests, data, dataLeaves, trailers);
+        if (leaves.count == 0) {
+            return digests.get().digest();
+        }
+        if (leaves.count <= SEQUENTIAL_LEAVES) {
+            return new TreeTask(leaves, 0, leaves.count).compute();
+        }
+        return ForkJoinPool.commonPool().invoke(new TreeTask(leaves, 0, leaves.count));
+    }
+
+    /**
+     * 叶子列表，数据块只记录位置，不复制
+     */
+    private static final class Leaves {
+        private final Supplier<Digest> digests;
+        private final byte[] data;
+        private final int dataLeaves;
+        private final byte[][] trailers;
+        private final int count;
+
+        private Leaves(Supplier<Digest> digests, byte[] data, int dataLeaves, byte[][] trailers) {
+            this.digests = digests;
+            this.data = data;
+            this.dataLeaves = dataLeaves;
+            this.trailers = trailers;
+            this.count = dataLeaves + trailers.length;
+        }
+
+        private byte[] hash(int index) {
+            Digest sha = digests.get();
+            sha.update(LEAF_PREFIX, 0, LEAF_PREFIX.length);
+            if (index < dataLeaves) {
+                int offset = index * CHUNK_SIZE;
+                sha.update(data, offset, Math.min(CHUNK_SIZE, data.length - offset));
+            } else {
+                byte[] trailer = trailers[index - dataLeaves];
+                sha.update(trailer, 0, trailer.length);
+            }
+            return sha.digest();
+        }
+    }
+
+    /**
+     * 计算 [from, to) 范围内叶子组成的子树哈希
+     */
+    private static final class TreeTask extends RecursiveTask<byte[]> {
+        private final Leaves leaves;
+        private final int from;
+        private final int to;
+
+        private TreeTask(Leaves leaves, int from, int to) {
+            this.leaves = leaves;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected byte[] compute() {
+            int n = to - from;
+            if (n == 1) {
+                return leaves.hash(from);
+            }
+            int k = Integer.highestOneBit(n - 1);
+            TreeTask left = new TreeTask(leaves, from, from + k);
+            TreeTask right = new TreeTask(leaves, from + k, to);
+            byte[] leftHash;
+            byte[] rightHash;
+            if (n <= SEQUENTIAL_LEAVES) {
+                leftHash = left.compute();
+                rightHash = right.compute();
+            } else {
+                right.fork();
+                leftHash = left.compute();
+                rightHash = right.join();
+            }
+            Digest sha = leaves.digests.get();
+            sha.update(NODE_PREFIX, 0, NODE_PREFIX.length);
+            sha.update(leftHash, 0, leftHash.length);
+            sha.update(rightHash, 0, rightHash.length);
+            return sha.digest();
+        }
+    }
+}
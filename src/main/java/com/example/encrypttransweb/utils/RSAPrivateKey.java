@@ -0,0 +1,74 @@
+package com.example.encrypttransweb.utils;
+
+import java.math.BigInteger;
+
+/**
+ * RSA 私钥
+ * 不可变对象，创建后可以在任意线程之间共享，不需要加锁
+ * 除了私钥指数 d 和模数 n，还可以带上中国剩余定理（CRT）参数，用于加速私钥运算
+ */
+public final class RSAPrivateKey {
+
+    // 私钥指数 d
+    private final BigInteger exponent;
+    // 模数 n
+    private final BigInteger modulus;
+    // CRT 参数：p、q 为两个素因子，dP = d mod (p-1)，dQ = d mod (q-1)，qInv = q^-1 mod p
+    private final BigInteger p, q, dP, dQ, qInv;
+
+    /**
+     * 不带 CRT 参数的私钥（旧格式私钥文件）
+     * @param exponent 私钥指数 d
+     * @param modulus 模数 n
+     */
+    public RSAPrivateKey(BigInteger exponent, BigInteger modulus) {
+        this(exponent, modulus, null, null, null, null, null);
+    }
+
+    public RSAPrivateKey(BigInteger exponent, BigInteger modulus,
+                         BigInteger p, BigInteger q, BigInteger dP, BigInteger dQ, BigInteger qInv) {
+        this.exponent = exponent;
+        this.modulus = modulus;
+        this.p = p;
+        this.q = q;
+        this.dP = dP;
+        this.dQ = dQ;
+        this.qInv = qInv;
+    }
+
+    /**
+     * 是否带有 CRT 参数
+     * @return 是否可以使用 CRT 加速
+     */
+    public boolean hasCrt() {
+        return p != null;
+    }
+
+    public BigInteger getExponent() {
+        return exponent;
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    public BigInteger getP() {
+        return p;
+    }
+
+    public BigInteger getQ() {
+        return q;
+    }
+
+    public BigInteger getDP() {
+        return dP;
+    }
+
+    public BigInteger getDQ() {
+        return dQ;
+    }
+
+    public BigInteger getQInv() {
+        return qInv;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.encrypttransweb.utils;
+
+import java.math.BigInteger;
+
+/**
+ * RSA 公钥
+ * 不可变对象，创建后可以在任意线程之间共享，不需要加锁
+ */
+public final class RSAPublicKey {
+
+    // 公钥指数 e
+    private final BigInteger exponent;
+    // 模数 n
+    private final BigInteger modulus;
+
+    public RSAPublicKey(BigInteger exponent, BigInteger modulus) {
+        this.exponent = exponent;
+        this.modulus = modulus;
+    }
+
+    public BigInteger getExponent() {
+        return exponent;
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+}
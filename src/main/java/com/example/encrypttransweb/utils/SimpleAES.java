@@ -1,19 +1,24 @@
 package com.example.encrypttransweb.utils;
 
+import java.security.SecureRandom;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * AES CBC 简易实现
+ * AES 简易实现
  * 这些简易版本的，只是方便看清原理，与标准 AES 加密还是有点区别的
- * AES 算法还是比较复杂的，这里只实现 CBC 加密模式
+ * 支持三种工作模式：
+ *  ECB：每个分组独立加密，没有 IV，相同的明文分组会得到相同的密文分组，仅为兼容旧数据保留
+ *  CBC：每个分组加密前先与上一个密文分组异或，需要 IV；加密只能串行，解密各分组互不依赖，可以并行
+ *  CTR：用 IV 作为初始计数器，加密计数器得到密钥流再与明文异或，不需要填充；加解密都可以并行
  */
 public class SimpleAES {
 
-    private static final int BLOCK_SIZE = 16;
-    private static final int ROUNDS = 10;
-    private static final int[] INV_S_BOX = new int[256];
-    private static final int[] S_BOX = {
+    static final int BLOCK_SIZE = 16;
+    static final int ROUNDS = 10;
+    static final int[] INV_S_BOX = new int[256];
+    static final int[] S_BOX = {
             0x63, 0x7c, 0x77, 0x7b, 0xf2, 0x6b, 0x6f, 0xc5, 0x30, 0x01, 0x67, 0x2b, 0xfe, 0xd7, 0xab, 0x76,
             0xca, 0x82, 0xc9, 0x7d, 0xfa, 0x59, 0x47, 0xf0, 0xad, 0xd4, 0xa2, 0xaf, 0x9c, 0xa4, 0x72, 0xc0,
             0xb7, 0xfd, 0x93, 0x26, 0x36, 0x3f, 0xf7, 0xcc, 0x34, 0xa5, 0xe5, 0xf1, 0x71, 0xd8, 0x31, 0x15,
@@ -36,9 +41,19 @@ public class SimpleAES {
             0x01, 0x02, 0x04, 0x08, 0x10, 0x20, 0x40, 0x80, 0x1b, 0x36
     };
 
+    // PADDING_CBC 实际是 PKCS#7 填充，名称为兼容旧代码保留
     public static final int PADDING_CBC = 0;
     public static final int PADDING_NONE = 1;
 
+    public static final int MODE_ECB = 0;
+    public static final int MODE_CBC = 1;
+    public static final int MODE_CTR = 2;
+    private static final String[] MODE_NAMES = {"ECB", "CBC", "CTR"};
+
+    // 超过这个长度的数据拆分成多段，在 ForkJoin 线程池上并行处理
+    private static final int PARALLEL_THRESHOLD = 64 * 1024;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private static int paddingMode = PADDING_CBC;
 
     static {
@@ -64,26 +79,25 @@ public class SimpleAES {
      * @param state
      */
     private static void shiftRows(int[] state) {
-        int[] temp = new int[BLOCK_SIZE];
-
-        System.arraycopy(state, 0, temp, 0, 4);
-
-        temp[4] = state[5];
-        temp[5] = state[6];
-        temp[6] = state[7];
-        temp[7] = state[4];
-
-        temp[8] = state[10];
-        temp[9] = state[11];
-        temp[10] = state[8];
-        temp[11] = state[9];
-
-        temp[12] = state[15];
-        temp[13] = state[12];
-        temp[14] = state[13];
-        temp[15] = state[14];
-
-        System.arraycopy(temp, 0, state, 0, BLOCK_SIZE);
+        // 原地移位，不再分配临时数组
+        int t = state[4];
+        state[4] = state[5];
+        state[5] = state[6];
+        state[6] = state[7];
+        state[7] = t;
+
+        t = state[8];
+        state[8] = state[10];
+        state[10] = t;
+        t = state[9];
+        state[9] = state[11];
+        state[11] = t;
+
+        t = state[15];
+        state[15] = state[14];
+        state[14] = state[13];
+        state[13] = state[12];
+        state[12] = t;
     }
 
     /**
@@ -106,27 +120,27 @@ public class SimpleAES {
         }
     }
 
-    private static int mul2(int value) {
+    static int mul2(int value) {
         return ((value << 1) & 0xff) ^ (((value >> 7) & 1) * 0x1b);
     }
 
-    private static int mul3(int value) {
+    static int mul3(int value) {
         return mul2(value) ^ value;
     }
 
-    private static int mul9(int value) {
+    static int mul9(int value) {
         return mul2(mul2(mul2(value))) ^ value;
     }
 
-    private static int mul11(int value) {
+    static int mul11(int value) {
         return mul2(mul2(mul2(value)) ^ value) ^ value;
     }
 
-    private static int mul13(int value) {
+    static int mul13(int value) {
         return mul2(mul2(mul2(value) ^ value)) ^ value;
     }
 
-    private static int mul14(int value) {
+    static int mul14(int value) {
         return mul2(mul2(mul2(value) ^ value) ^ value);
     }
 
@@ -134,21 +148,24 @@ public class SimpleAES {
      * 轮密钥加
      *
      * @param state
-     * @param roundKey
+     * @param roundKeys 全部轮密钥
+     * @param round 轮数
      */
-    private static void addRoundKey(int[] state, int[] roundKey) {
+    private static void addRoundKey(int[] state, int[] roundKeys, int round) {
+        int offset = round * BLOCK_SIZE;
         for (int i = 0; i < BLOCK_SIZE; i++) {
-            state[i] ^= roundKey[i];
+            state[i] ^= roundKeys[offset + i];
         }
     }
 
     /**
      * 扩展密钥
+     * 状态中的每个值最终都只保留低 8 位参与运算，所以扩展结束后将轮密钥截断为单字节
      *
      * @param key
      * @return
      */
-    private static int[] keyExpansion(byte[] key) {
+    static int[] keyExpansion(byte[] key) {
         int[] expandedKey = new int[BLOCK_SIZE * (ROUNDS + 1)];
         int temp;
         int i = 0;
@@ -167,9 +184,28 @@ public class SimpleAES {
             expandedKey[i] = expandedKey[i - key.length] ^ temp;
         }
 
+        for (i = 0; i < expandedKey.length; i++) {
+            expandedKey[i] &= 0xff;
+        }
         return expandedKey;
     }
 
+    /**
+     * 计算解密使用的逆轮密钥
+     * 逆列混合是线性运算，invMixColumns(state ^ roundKey) = invMixColumns(state) ^ invMixColumns(roundKey)，
+     * 所以预先对中间各轮的轮密钥做逆列混合，解密时就可以和加密一样先变换状态、再加轮密钥（等价逆密码）
+     *
+     * @param roundKeys 加密轮密钥
+     * @return 解密轮密钥
+     */
+    static int[] inverseKeyExpansion(int[] roundKeys) {
+        int[] inverse = roundKeys.clone();
+        for (int round = 1; round < ROUNDS; round++) {
+            invMixColumns(inverse, round * BLOCK_SIZE);
+        }
+        return inverse;
+    }
+
     /**
      * S-盒替换字
      *
@@ -210,26 +246,25 @@ public class SimpleAES {
      * @param state
      */
     private static void invShiftRows(int[] state) {
-        int[] temp = new int[BLOCK_SIZE];
-
-        System.arraycopy(state, 0, temp, 0, 4);
-
-        temp[4] = state[7];
-        temp[5] = state[4];
-        temp[6] = state[5];
-        temp[7] = state[6];
-
-        temp[8] = state[10];
-        temp[9] = state[11];
-        temp[10] = state[8];
-        temp[11] = state[9];
-
-        temp[12] = state[13];
-        temp[13] = state[14];
-        temp[14] = state[15];
-        temp[15] = state[12];
-
-        System.arraycopy(temp, 0, state, 0, BLOCK_SIZE);
+        // 原地移位，不再分配临时数组
+        int t = state[7];
+        state[7] = state[6];
+        state[6] = state[5];
+        state[5] = state[4];
+        state[4] = t;
+
+        t = state[8];
+        state[8] = state[10];
+        state[10] = t;
+        t = state[9];
+        state[9] = state[11];
+        state[11] = t;
+
+        t = state[12];
+        state[12] = state[13];
+        state[13] = state[14];
+        state[14] = state[15];
+        state[15] = t;
     }
 
     /**
@@ -238,8 +273,18 @@ public class SimpleAES {
      * @param state
      */
     private static void invMixColumns(int[] state) {
+        invMixColumns(state, 0);
+    }
+
+    /**
+     * 逆列混合
+     *
+     * @param state
+     * @param offset 起始位置
+     */
+    private static void invMixColumns(int[] state, int offset) {
         for (int i = 0; i < 4; i++) {
-            int start = i * 4;
+            int start = offset + i * 4;
             int a0 = state[start];
             int a1 = state[start + 1];
             int a2 = state[start + 2];
@@ -253,9 +298,14 @@ public class SimpleAES {
     }
 
 
+    /**
+     * 生成随机 AES 密钥，与 IV 一样使用 SecureRandom，java.util.Random 的输出可以被预测
+     *
+     * @return 16 字节密钥
+     */
     public static byte[] generateRandomKey() {
         byte[] key = new byte[16];
-        new Random().nextBytes(key);
+        RANDOM.nextBytes(key);
         return key;
     }
 
@@ -270,40 +320,75 @@ public class SimpleAES {
         return padded;
     }
 
+    /**
+     * 去掉补位
+     * 补位长度必须在 1 到 16 之间且不超过数据长度，补位的每个字节都必须等于补位长度，
+     * 否则说明密钥错误或密文被篡改，直接拒绝，不返回截取错误的数据
+     *
+     * @param input 补位后的数据
+     * @return 原始数据
+     * @throws IllegalArgumentException 补位无效
+     */
     public static byte[] unpad(byte[] input) {
         if (paddingMode == PADDING_NONE) {
             return input;
         }
-        int paddingLength = input[input.length - 1];
+        if (input.length == 0) {
+            throw new IllegalArgumentException("补位无效");
+        }
+        int paddingLength = input[input.length - 1] & 0xff;
+        if (paddingLength < 1 || paddingLength > BLOCK_SIZE || paddingLength > input.length) {
+            throw new IllegalArgumentException("补位无效");
+        }
+        for (int i = input.length - paddingLength; i < input.length; i++) {
+            if ((input[i] & 0xff) != paddingLength) {
+                throw new IllegalArgumentException("补位无效");
+            }
+        }
         byte[] unpadded = new byte[input.length - paddingLength];
         System.arraycopy(input, 0, unpadded, 0, unpadded.length);
         return unpadded;
     }
 
     public static byte[] encrypt(byte[] input, byte[] key) {
+        return encrypt(input, new AESKey(key));
+    }
+
+    public static byte[] decrypt(byte[] input, byte[] key) {
+        return decrypt(input, new AESKey(key));
+    }
+
+    /**
+     * 加密
+     * 密钥扩展在创建 AESKey 时已经完成，分组循环中不再分配任何对象
+     *
+     * @param input 明文
+     * @param key 密钥
+     * @return 密文
+     */
+    public static byte[] encrypt(byte[] input, AESKey key) {
         input = pad(input);
         int numBlocks = input.length / BLOCK_SIZE;
         byte[] output = new byte[input.length];
+        int[] state = new int[BLOCK_SIZE];
+        int[] roundKeys = key.encryptRoundKeys;
 
         for (int block = 0; block < numBlocks; block++) {
-            int[] state = new int[BLOCK_SIZE];
-            int[] expandedKey = keyExpansion(key);
-
             for (int i = 0; i < BLOCK_SIZE; i++) {
                 state[i] = input[block * BLOCK_SIZE + i] & 0xff;
             }
-            addRoundKey(state, Arrays.copyOfRange(expandedKey, 0, BLOCK_SIZE));
+            addRoundKey(state, roundKeys, 0);
 
             for (int round = 1; round < ROUNDS; round++) {
                 subBytes(state);
                 shiftRows(state);
                 mixColumns(state);
-                addRoundKey(state, Arrays.copyOfRange(expandedKey, round * BLOCK_SIZE, (round + 1) * BLOCK_SIZE));
+                addRoundKey(state, roundKeys, round);
             }
 
             subBytes(state);
             shiftRows(state);
-            addRoundKey(state, Arrays.copyOfRange(expandedKey, ROUNDS * BLOCK_SIZE, (ROUNDS + 1) * BLOCK_SIZE));
+            addRoundKey(state, roundKeys, ROUNDS);
 
             for (int i = 0; i < BLOCK_SIZE; i++) {
                 output[block * BLOCK_SIZE + i] = (byte) state[i];
@@ -312,29 +397,36 @@ public class SimpleAES {
         return output;
     }
 
-    public static byte[] decrypt(byte[] input, byte[] key) {
+    /**
+     * 解密
+     * 使用预先计算好的逆轮密钥，分组循环中不再分配任何对象
+     *
+     * @param input 密文
+     * @param key 密钥
+     * @return 明文
+     */
+    public static byte[] decrypt(byte[] input, AESKey key) {
         int numBlocks = input.length / BLOCK_SIZE;
         byte[] output = new byte[input.length];
+        int[] state = new int[BLOCK_SIZE];
+        int[] roundKeys = key.decryptRoundKeys;
 
         for (int block = 0; block < numBlocks; block++) {
-            int[] state = new int[BLOCK_SIZE];
-            int[] expandedKey = keyExpansion(key);
-
             for (int i = 0; i < BLOCK_SIZE; i++) {
                 state[i] = input[block * BLOCK_SIZE + i] & 0xff;
             }
-            addRoundKey(state, Arrays.copyOfRange(expandedKey, ROUNDS * BLOCK_SIZE, (ROUNDS + 1) * BLOCK_SIZE));
+            addRoundKey(state, roundKeys, ROUNDS);
 
             for (int round = ROUNDS - 1; round > 0; round--) {
                 invShiftRows(state);
                 invSubBytes(state);
-                addRoundKey(state, Arrays.copyOfRange(expandedKey, round * BLOCK_SIZE, (round + 1) * BLOCK_SIZE));
                 invMixColumns(state);
+                addRoundKey(state, roundKeys, round);
             }
 
             invShiftRows(state);
             invSubBytes(state);
-            addRoundKey(state, Arrays.copyOfRange(expandedKey, 0, BLOCK_SIZE));
+            addRoundKey(state, roundKeys, 0);
 
             for (int i = 0; i < BLOCK_SIZE; i++) {
                 output[block * BLOCK_SIZE + i] = (byte) state[i];
@@ -343,6 +435,220 @@ public class SimpleAES {
         return unpad(output);
     }
 
+    /**
+     * 按指定工作模式加密
+     *
+     * @param input 明文
+     * @param key 密钥
+     * @param mode 工作模式 MODE_ECB / MODE_CBC / MODE_CTR
+     * @param iv 初始向量（CTR 模式下为初始计数器），ECB 模式忽略
+     * @return 密文
+     */
+    public static byte[] encrypt(byte[] input, AESKey key, int mode, byte[] iv) {
+        switch (mode) {
+            case MODE_ECB:
+                return FastAES.encrypt(input, key);
+            case MODE_CBC:
+                return encryptCBC(pad(input), key, checkIV(iv));
+            case MODE_CTR:
+                return ctr(input, key, checkIV(iv));
+            default:
+                throw new IllegalArgumentException("不支持的工作模式: " + mode);
+        }
+    }
+
+    /**
+     * 按指定工作模式解密
+     *
+     * @param input 密文
+     * @param key 密钥
+     * @param mode 工作模式 MODE_ECB / MODE_CBC / MODE_CTR
+     * @param iv 初始向量（CTR 模式下为初始计数器），ECB 模式忽略
+     * @return 明文
+     */
+    public static byte[] decrypt(byte[] input, AESKey key, int mode, byte[] iv) {
+        switch (mode) {
+            case MODE_ECB:
+                return FastAES.decrypt(input, key);
+            case MODE_CBC:
+                return unpad(decryptCBC(input, key, checkIV(iv)));
+            case MODE_CTR:
+                return ctr(input, key, checkIV(iv));
+            default:
+                throw new IllegalArgumentException("不支持的工作模式: " + mode);
+        }
+    }
+
+    /**
+     * 生成随机 IV
+     *
+     * @return 16 字节 IV
+     */
+    public static byte[] generateIV() {
+        byte[] iv = new byte[BLOCK_SIZE];
+        RANDOM.nextBytes(iv);
+        return iv;
+    }
+
+    /**
+     * 工作模式名称，用于数据包中标识工作模式
+     *
+     * @param mode 工作模式
+     * @return 名称
+     */
+    public static String modeName(int mode) {
+        return MODE_NAMES[mode];
+    }
+
+    /**
+     * 根据名称获取工作模式，没有名称的旧数据包按 ECB 处理
+     *
+     * @param name 名称
+     * @return 工作模式
+     */
+    public static int modeOf(String name) {
+        if (name == null || name.isEmpty()) {
+            return MODE_ECB;
+        }
+        for (int i = 0; i < MODE_NAMES.length; i++) {
+            if (MODE_NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("不支持的工作模式: " + name);
+    }
+
+    /**
+     * CBC 加密，每个分组都依赖上一个密文分组，只能串行
+     */
+    private static byte[] encryptCBC(byte[] input, AESKey key, byte[] iv) {
+        byte[] output = new byte[input.length];
+        byte[] block = iv.clone();
+        for (int offset = 0; offset < input.length; offset += BLOCK_SIZE) {
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                block[i] ^= input[offset + i];
+            }
+            FastAES.encryptBlock(block, 0, block, 0, key);
+            System.arraycopy(block, 0, output, offset, BLOCK_SIZE);
+        }
+        return output;
+    }
+
+    /**
+     * CBC 解密，P[i] = D(C[i]) ^ C[i-1]，每个分组只依赖密文，可以并行
+     */
+    private static byte[] decryptCBC(byte[] input, AESKey key, byte[] iv) {
+        if (input.length % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("密文长度不是分组长度的整数倍");
+        }
+        byte[] output = new byte[input.length];
+        runBlocks(input.length, (from, to) -> {
+            for (int offset = from; offset < to; offset += BLOCK_SIZE) {
+                FastAES.decryptBlock(input, offset, output, offset, key);
+                byte[] previous = offset == 0 ? iv : input;
+                int previousOffset = offset == 0 ? 0 : offset - BLOCK_SIZE;
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    output[offset + i] ^= previous[previousOffset + i];
+                }
+            }
+        });
+        return output;
+    }
+
+    /**
+     * CTR 加解密，第 i 个分组的密钥流为 E(IV + i)，加密和解密是同一个运算，各分组互不依赖，可以并行
+     */
+    private static byte[] ctr(byte[] input, AESKey key, byte[] iv) {
+        byte[] output = new byte[input.length];
+        runBlocks(input.length, (from, to) -> ctr(key, iv, from / BLOCK_SIZE, input, from, to - from, output, from));
+        return output;
+    }
+
+    /**
+     * 从指定分组位置开始做 CTR 运算，供流式处理分段调用
+     *
+     * @param key 密钥
+     * @param iv 初始计数器
+     * @param blockIndex 起始分组序号
+     * @param in 输入
+     * @param inOffset 输入起始位置
+     * @param length 长度，除最后一段外应为分组长度的整数倍
+     * @param out 输出，可以与输入是同一个数组
+     * @param outOffset 输出起始位置
+     */
+    public static void ctr(AESKey key, byte[] iv, long blockIndex, byte[] in, int inOffset, int length, byte[] out, int outOffset) {
+        byte[] counter = iv.clone();
+        addCounter(counter, blockIndex);
+        byte[] keyStream = new byte[BLOCK_SIZE];
+        for (int done = 0; done < length; done += BLOCK_SIZE) {
+            FastAES.encryptBlock(counter, 0, keyStream, 0, key);
+            int n = Math.min(BLOCK_SIZE, length - done);
+            for (int i = 0; i < n; i++) {
+                out[outOffset + done + i] = (byte) (in[inOffset + done + i] ^ keyStream[i]);
+            }
+            addCounter(counter, 1);
+        }
+    }
+
+    /**
+     * 将 16 字节计数器按大端 128 位整数加上 value
+     */
+    private static void addCounter(byte[] counter, long value) {
+        for (int i = BLOCK_SIZE - 1; i >= 0 && value != 0; i--) {
+            long sum = (counter[i] & 0xff) + (value & 0xff);
+            counter[i] = (byte) sum;
+            value = (value >>> 8) + (sum >>> 8);
+        }
+    }
+
+    private static byte[] checkIV(byte[] iv) {
+        if (iv == null || iv.length != BLOCK_SIZE) {
+            throw new IllegalArgumentException("IV 长度必须为 " + BLOCK_SIZE + " 字节");
+        }
+        return iv;
+    }
+
+    /**
+     * 处理 [from, to) 范围内的分组
+     */
+    private interface BlockRange {
+        void process(int from, int to);
+    }
+
+    /**
+     * 按分组范围执行，数据较大时拆分到 ForkJoin 线程池并行执行
+     */
+    private static void runBlocks(int length, BlockRange range) {
+        if (length <= PARALLEL_THRESHOLD) {
+            range.process(0, length);
+        } else {
+            ForkJoinPool.commonPool().invoke(new BlockTask(range, 0, length));
+        }
+    }
+
+    private static final class BlockTask extends RecursiveAction {
+        private final BlockRange range;
+        private final int from;
+        private final int to;
+
+        private BlockTask(BlockRange range, int from, int to) {
+            this.range = range;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                range.process(from, to);
+                return;
+            }
+            // 拆分点对齐到分组边界
+            int middle = from + ((to - from) / 2 / BLOCK_SIZE) * BLOCK_SIZE;
+            invokeAll(new BlockTask(range, from, middle), new BlockTask(range, middle, to));
+        }
+    }
+
     public static void setPaddingMode(int mode) {
         paddingMode = mode;
     }
@@ -367,5 +673,13 @@ public class SimpleAES {
         byte[] decryptedText = decrypt(ciphertext, key);
         System.out.println("Decrypted text: " + Arrays.toString(decryptedText));
         System.out.println("Decrypted text (as string): " + new String(decryptedText).trim());
+
+        AESKey aesKey = new AESKey(key);
+        byte[] iv = generateIV();
+        for (int mode : new int[]{MODE_CBC, MODE_CTR}) {
+            byte[] modeCiphertext = encrypt(input, aesKey, mode, iv);
+            System.out.println(modeName(mode) + " ciphertext: " + SimpleBase64.byteToBase64(modeCiphertext));
+            System.out.println(modeName(mode) + " decrypted: " + new String(decrypt(modeCiphertext, aesKey, mode, iv)));
+        }
     }
 }
@@ -1,70 +1,240 @@
 package com.example.encrypttransweb.utils;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
  * Base64 简易版实现。
  * 这些简易版本的，只是方便看清原理，肯定还是存在很多问题的
+ * <p>
+ * 编码按 3 字节一组查表输出 4 个字符，解码通过 256 项的解码表把字符直接映射为 6 位数值，输出数组按长度一次性分配
+ * 解码严格校验：长度必须是 4 的整数倍，只允许字母表中的字符，'=' 只能出现在末尾且最多两个，否则抛出 IllegalArgumentException
+ * 同时支持标准字母表（+/）和 URL 安全字母表（-_），以及不经过 String 的 byte[]、ByteBuffer 版本
  */
 public class SimpleBase64 {
 
-    private static final char[] encodingTable = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final byte[] encodingTable = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] urlEncodingTable = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.ISO_8859_1);
+    // 解码表，下标为字符的 ASCII 码，值为 6 位数值，-1 表示非法字符
+    private static final int[] decodingTable = decodingTable(encodingTable);
+    private static final int[] urlDecodingTable = decodingTable(urlEncodingTable);
+
+    private static final byte PADDING = '=';
+
+    private static int[] decodingTable(byte[] encodingTable) {
+        int[] table = new int[256];
+        Arrays.fill(table, -1);
+        for (int i = 0; i < encodingTable.length; i++) {
+            table[encodingTable[i]] = i;
+        }
+        return table;
+    }
 
     public static String byteToBase64(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        int padding = 0;
-        for (int i = 0; i < bytes.length; i += 3) {
-            int b1 = bytes[i] & 0xFF;
-            int b2 = (i + 1 < bytes.length) ? bytes[i + 1] & 0xFF : 0;
-            int b3 = (i + 2 < bytes.length) ? bytes[i + 2] & 0xFF : 0;
+        return new String(encode(bytes, false), StandardCharsets.ISO_8859_1);
+    }
+
+    public static byte[] base64ToByte(String base64String) {
+        return decode(base64String.getBytes(StandardCharsets.ISO_8859_1), false);
+    }
+
+    /**
+     * 使用 URL 安全字母表编码
+     */
+    public static String byteToBase64Url(byte[] bytes) {
+        return new String(encode(bytes, true), StandardCharsets.ISO_8859_1);
+    }
 
-            int combined = (b1 << 16) | (b2 << 8) | b3;
+    /**
+     * 使用 URL 安全字母表解码
+     */
+    public static byte[] base64UrlToByte(String base64String) {
+        return decode(base64String.getBytes(StandardCharsets.ISO_8859_1), true);
+    }
 
-            result.append(encodingTable[(combined >> 18) & 0x3F]);
-            result.append(encodingTable[(combined >> 12) & 0x3F]);
-            result.append((i + 1 < bytes.length) ? encodingTable[(combined >> 6) & 0x3F] : '=');
-            result.append((i + 2 < bytes.length) ? encodingTable[combined & 0x3F] : '=');
+    /**
+     * 编码，结果为 ASCII 字节
+     */
+    public static byte[] encode(byte[] src) {
+        return encode(src, false);
+    }
+
+    public static byte[] encode(byte[] src, boolean urlSafe) {
+        byte[] dst = new byte[encodedLength(src.length)];
+        encode(src, 0, src.length, dst, 0, urlSafe);
+        return dst;
+    }
+
+    /**
+     * 解码 ASCII 字节
+     * @throws IllegalArgumentException 不是合法的 Base64
+     */
+    public static byte[] decode(byte[] src) {
+        return decode(src, false);
+    }
+
+    public static byte[] decode(byte[] src, boolean urlSafe) {
+        byte[] dst = new byte[decodedLength(src, 0, src.length)];
+        decode(src, 0, src.length, dst, 0, urlSafe);
+        return dst;
+    }
+
+    /**
+     * 编码 src 中剩余的全部字节，src 的 position 移动到 limit
+     * @return 新的 ByteBuffer，position 为 0，limit 为编码长度
+     */
+    public static ByteBuffer encode(ByteBuffer src) {
+        return encode(src, false);
+    }
+
+    public static ByteBuffer encode(ByteBuffer src, boolean urlSafe) {
+        int length = src.remaining();
+        byte[] dst = new byte[encodedLength(length)];
+        if (src.hasArray()) {
+            encode(src.array(), src.arrayOffset() + src.position(), length, dst, 0, urlSafe);
+            src.position(src.limit());
+        } else {
+            byte[] bytes = new byte[length];
+            src.get(bytes);
+            encode(bytes, 0, length, dst, 0, urlSafe);
         }
+        return ByteBuffer.wrap(dst);
+    }
+
+    /**
+     * 解码 src 中剩余的全部字节，src 的 position 移动到 limit
+     * @return 新的 ByteBuffer，position 为 0，limit 为解码长度
+     * @throws IllegalArgumentException 不是合法的 Base64，此时 src 的 position 不变
+     */
+    public static ByteBuffer decode(ByteBuffer src) {
+        return decode(src, false);
+    }
 
-        return result.toString();
+    public static ByteBuffer decode(ByteBuffer src, boolean urlSafe) {
+        byte[] bytes;
+        int offset;
+        int length = src.remaining();
+        if (src.hasArray()) {
+            bytes = src.array();
+            offset = src.arrayOffset() + src.position();
+        } else {
+            bytes = new byte[length];
+            src.duplicate().get(bytes);
+            offset = 0;
+        }
+        byte[] dst = new byte[decodedLength(bytes, offset, length)];
+        decode(bytes, offset, length, dst, 0, urlSafe);
+        src.position(src.limit());
+        return ByteBuffer.wrap(dst);
     }
 
-    public static byte[] base64ToByte(String base64String) {
+    /**
+     * 编码后的长度
+     */
+    public static int encodedLength(int length) {
+        return (length + 2) / 3 * 4;
+    }
+
+    /**
+     * 解码后的长度
+     * @throws IllegalArgumentException 长度不是 4 的整数倍
+     */
+    private static int decodedLength(byte[] src, int offset, int length) {
+        if (length % 4 != 0) {
+            throw new IllegalArgumentException("Base64 长度必须是 4 的整数倍: " + length);
+        }
+        if (length == 0) {
+            return 0;
+        }
         int padding = 0;
-        for (int i = base64String.length() - 1; base64String.charAt(i) == '='; i--) {
+        if (src[offset + length - 1] == PADDING) {
             padding++;
+            if (src[offset + length - 2] == PADDING) {
+                padding++;
+            }
+        }
+        return length / 4 * 3 - padding;
+    }
+
+    private static void encode(byte[] src, int offset, int length, byte[] dst, int dstOffset, boolean urlSafe) {
+        byte[] table = urlSafe ? urlEncodingTable : encodingTable;
+        int end = offset + length - length % 3;
+        int i = offset;
+        int j = dstOffset;
+        // 完整的 3 字节分组
+        while (i < end) {
+            int combined = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[j] = table[combined >>> 18];
+            dst[j + 1] = table[(combined >>> 12) & 0x3F];
+            dst[j + 2] = table[(combined >>> 6) & 0x3F];
+            dst[j + 3] = table[combined & 0x3F];
+            i += 3;
+            j += 4;
+        }
+        // 剩余 1 或 2 字节，用 '=' 补齐
+        int remaining = length % 3;
+        if (remaining > 0) {
+            int b1 = src[i] & 0xFF;
+            int b2 = remaining == 2 ? src[i + 1] & 0xFF : 0;
+            int combined = (b1 << 16) | (b2 << 8);
+            dst[j] = table[combined >>> 18];
+            dst[j + 1] = table[(combined >>> 12) & 0x3F];
+            dst[j + 2] = remaining == 2 ? table[(combined >>> 6) & 0x3F] : PADDING;
+            dst[j + 3] = PADDING;
         }
+    }
 
-        int length = base64String.length() * 6 / 8 - padding;
-        byte[] result = new byte[length];
-        int index = 0;
-        int block = 0;
-        int blockCount = 0;
-
-        for (int i = 0; i < base64String.length(); i++) {
-            char c = base64String.charAt(i);
-            int value = (c <= 'Z' && c >= 'A') ? c - 'A'
-                    : (c <= 'z' && c >= 'a') ? c - 'a' + 26
-                    : (c <= '9' && c >= '0') ? c - '0' + 52
-                    : (c == '+') ? 62
-                    : (c == '/') ? 63
-                    : 0;
-
-            block = (block << 6) + value;
-            blockCount++;
-
-            if (blockCount == 4) {
-                result[index++] = (byte) (block >> 16);
-                if (index < length)
-                    result[index++] = (byte) (block >> 8);
-                if (index < length)
-                    result[index++] = (byte) (block);
-                block = 0;
-                blockCount = 0;
+    private static void decode(byte[] src, int offset, int length, byte[] dst, int dstOffset, boolean urlSafe) {
+        if (length == 0) {
+            return;
+        }
+        int[] table = urlSafe ? urlDecodingTable : decodingTable;
+        // 最后一组可能带 '='，单独处理
+        int end = offset + length - 4;
+        int i = offset;
+        int j = dstOffset;
+        while (i < end) {
+            int c1 = table[src[i] & 0xFF];
+            int c2 = table[src[i + 1] & 0xFF];
+            int c3 = table[src[i + 2] & 0xFF];
+            int c4 = table[src[i + 3] & 0xFF];
+            // 任意一个字符非法时结果为负数
+            if ((c1 | c2 | c3 | c4) < 0) {
+                throw illegalCharacter(src, i, offset, table);
             }
+            int block = c1 << 18 | c2 << 12 | c3 << 6 | c4;
+            dst[j] = (byte) (block >> 16);
+            dst[j + 1] = (byte) (block >> 8);
+            dst[j + 2] = (byte) block;
+            i += 4;
+            j += 3;
         }
 
-        return result;
+        int c1 = table[src[i] & 0xFF];
+        int c2 = table[src[i + 1] & 0xFF];
+        int c3 = src[i + 2] == PADDING && src[i + 3] == PADDING ? 0 : table[src[i + 2] & 0xFF];
+        int c4 = src[i + 3] == PADDING ? 0 : table[src[i + 3] & 0xFF];
+        if ((c1 | c2 | c3 | c4) < 0) {
+            throw illegalCharacter(src, i, offset, table);
+        }
+        int block = c1 << 18 | c2 << 12 | c3 << 6 | c4;
+        dst[j] = (byte) (block >> 16);
+        if (src[i + 2] != PADDING) {
+            dst[j + 1] = (byte) (block >> 8);
+        }
+        if (src[i + 3] != PADDING) {
+            dst[j + 2] = (byte) block;
+        }
+    }
+
+    private static IllegalArgumentException illegalCharacter(byte[] src, int from, int offset, int[] table) {
+        for (int i = from; i < from + 4; i++) {
+            if (table[src[i] & 0xFF] < 0) {
+                return new IllegalArgumentException("非法的 Base64 字符 '" + (char) (src[i] & 0xFF) + "'，位置 " + (i - offset));
+            }
+        }
+        return new IllegalArgumentException("非法的 Base64 数据");
     }
 
     /**
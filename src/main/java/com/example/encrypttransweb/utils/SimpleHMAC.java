@@ -0,0 +1,105 @@
+package com.example.encrypttransweb.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * HMAC-SHA256 简易版实现，基于 SimpleSHA，结果与 JDK 的 HmacSHA256 相同
+ * <p>
+ * 基本原理：
+ *  HMAC(K, m) = SHA256((K' ^ opad) + SHA256((K' ^ ipad) + m))
+ *  K' 是补零到 64 字节（SHA-256 的块大小）的密钥，超过 64 字节的密钥先做一次 SHA-256
+ *  ipad 为 64 个 0x36，opad 为 64 个 0x5c
+ *  只有知道密钥的一方才能算出正确的 HMAC，用来校验数据没有被篡改，计算量只是两次哈希，比 RSA 签名小得多
+ * <p>
+ * K' ^ ipad 和 K' ^ opad 正好各占一个块，只与密钥有关，创建实例时压缩一次并保存压缩后的状态，
+ * 之后每次计算从保存的状态复制开始，不再重复压缩这两个块：
+ *  短消息的 HMAC 原本要压缩 4 个块，现在只需要 2 个，和对消息做一次 SHA-256 差不多
+ * 同一个密钥应该只创建一个实例重复使用，保存的状态创建后不再修改，实例可以多线程共用
+ */
+public class SimpleHMAC {
+
+    // SHA-256 的块大小
+    private static final int BLOCK_SIZE = 64;
+    private static final byte IPAD = 0x36;
+    private static final byte OPAD = 0x5c;
+
+    // 已压缩 K' ^ ipad 的状态
+    private final SimpleSHA inner;
+    // 已压缩 K' ^ opad 的状态
+    private final SimpleSHA outer;
+
+    /**
+     * @param key 密钥
+     */
+    public SimpleHMAC(byte[] key) {
+        byte[] block = key.length > BLOCK_SIZE ? SimpleSHA.sha256(key) : key;
+        byte[] pad = Arrays.copyOf(block, BLOCK_SIZE);
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            pad[i] ^= IPAD;
+        }
+        inner = new SimpleSHA();
+        inner.update(pad);
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            pad[i] ^= IPAD ^ OPAD;
+        }
+        outer = new SimpleSHA();
+        outer.update(pad);
+        // 补零后的密钥不再需要
+        Arrays.fill(pad, (byte) 0);
+    }
+
+    /**
+     * 按顺序对多段数据计算 HMAC-SHA256，不需要先拼接成一个数组
+     * @param parts 数据
+     * @return 32 字节的 HMAC
+     */
+    public byte[] mac(byte[]... parts) {
+        SimpleSHA sha = new SimpleSHA(inner);
+        for (byte[] part : parts) {
+            sha.update(part);
+        }
+        byte[] innerHash = sha.digest();
+
+        sha = new SimpleSHA(outer);
+        sha.update(innerHash);
+        return sha.digest();
+    }
+
+    /**
+     * 校验 HMAC
+     * 按固定时间比较，比较耗时不随相同前缀的长度变化，不能通过响应时间逐字节猜出正确的 HMAC
+     * @param mac 待校验的 HMAC
+     * @param parts 数据
+     * @return 是否一致
+     */
+    public boolean verify(byte[] mac, byte[]... parts) {
+        return mac != null && MessageDigest.isEqual(mac(parts), mac);
+    }
+
+    /**
+     * 一次性计算 HMAC-SHA256，同一个密钥需要多次计算时应创建实例重复使用
+     * @param key 密钥
+     * @param parts 数据
+     * @return 32 字节的 HMAC
+     */
+    public static byte[] hmacSha256(byte[] key, byte[]... parts) {
+        return new SimpleHMAC(key).mac(parts);
+    }
+
+    /**
+     * 测试类，结果应为 RFC 4231 测试用例 2 的
+     * 5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843
+     * @param args
+     */
+    public static void main(String[] args) {
+        SimpleHMAC hmac = new SimpleHMAC("Jefe".getBytes(StandardCharsets.UTF_8));
+        byte[] mac = hmac.mac("what do ya want ".getBytes(StandardCharsets.UTF_8), "for nothing?".getBytes(StandardCharsets.UTF_8));
+        System.out.println("HMAC: " + HexFormat.of().formatHex(mac));
+        System.out.println("verify: " + hmac.verify(mac, "what do ya want for nothing?".getBytes(StandardCharsets.UTF_8)));
+    }
+}
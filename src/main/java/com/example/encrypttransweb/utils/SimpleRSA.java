@@ -3,7 +3,9 @@ package com.example.encrypttransweb.utils;
 import java.io.*;
 import java.math.BigInteger;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
@@ -16,8 +18,22 @@ import java.util.Arrays;
  */
 public class SimpleRSA {
 
+    // 密钥存储目录及文件
+    public static final String KEY_DIR = "keys";
+    public static final String PUBLIC_KEY_FILE = "rsa.public.key";
+    public static final String PRIVATE_KEY_FILE = "rsa.private.key";
+
+    /**
+     * 密钥文件格式：魔数 "RSAK" + 版本号 + 分量个数，随后每个分量为 4 字节长度 + BigInteger 字节
+     * 相比 ObjectOutputStream 序列化，体积更小，读取时也不需要走 Java 反序列化
+     */
+    private static final int KEY_FILE_MAGIC = 0x5253414B;
+    private static final int KEY_FILE_VERSION = 1;
+
     // 定义 n 为模数, d 为私钥, e 为公钥
     private BigInteger n, d, e;
+    // 中国剩余定理（CRT）参数：p、q 为两个素因子，dP = d mod (p-1)，dQ = d mod (q-1)，qInv = q^-1 mod p
+    private BigInteger p, q, dP, dQ, qInv;
     // 以 RSA 1024 为例，密钥长度 1024
     private int bitlen = 1024;
 
@@ -27,12 +43,13 @@ public class SimpleRSA {
 
     /**
      * 加密
+     * 所有加解密方法都是无状态的，密钥对象不可变，可以在多线程下并发调用，不需要加锁
      * @param message 要加密的信息
      * @param publicKey 公钥
      * @param modulus 模数
      * @return 加密后的字节数组
      */
-    public static synchronized byte[] encrypt(byte[] message, BigInteger publicKey, BigInteger modulus) {
+    public static byte[] encrypt(byte[] message, BigInteger publicKey, BigInteger modulus) {
         // 将字节数组转换为正整数
         BigInteger plaintext = new BigInteger(1, message);
         // 使用公钥和模数进行加密
@@ -48,33 +65,144 @@ public class SimpleRSA {
      * @param modulus 模数
      * @return 解密后的字节数组
      */
-    public static synchronized byte[] decrypt(byte[] message, BigInteger privateKey, BigInteger modulus) {
+    public static byte[] decrypt(byte[] message, BigInteger privateKey, BigInteger modulus) {
         // 将字节数组转换为正整数
         BigInteger ciphertext = new BigInteger(1, message);
         // 使用私钥和模数进行解密
         BigInteger plaintext = ciphertext.modPow(privateKey, modulus);
         // 解密后的字节数组
-        byte[] plaintextArray = plaintext.toByteArray();
+        return stripLeadingZero(plaintext.toByteArray());
+    }
+
+    /**
+     * 使用公钥加密
+     * @param message 要加密的信息
+     * @param publicKey 公钥
+     * @return 加密后的字节数组
+     */
+    public static byte[] encrypt(byte[] message, RSAPublicKey publicKey) {
+        return encrypt(message, publicKey.getExponent(), publicKey.getModulus());
+    }
+
+    /**
+     * 使用公钥解密（验签）
+     * @param message 要解密的信息
+     * @param publicKey 公钥
+     * @return 解密后的字节数组
+     */
+    public static byte[] decrypt(byte[] message, RSAPublicKey publicKey) {
+        return decrypt(message, publicKey.getExponent(), publicKey.getModulus());
+    }
+
+    /**
+     * 使用私钥加密（签名），带 CRT 参数时基于中国剩余定理计算
+     * 结果与 encrypt(message, d, n) 完全一致
+     * @param message 要加密的信息
+     * @param privateKey 私钥
+     * @return 加密后的字节数组
+     */
+    public static byte[] encrypt(byte[] message, RSAPrivateKey privateKey) {
+        BigInteger plaintext = new BigInteger(1, message);
+        return modPowPrivate(plaintext, privateKey).toByteArray();
+    }
+
+    /**
+     * 使用私钥解密，带 CRT 参数时基于中国剩余定理计算
+     * 结果与 decrypt(message, d, n) 完全一致
+     * @param message 要解密的信息
+     * @param privateKey 私钥
+     * @return 解密后的字节数组
+     */
+    public static byte[] decrypt(byte[] message, RSAPrivateKey privateKey) {
+        BigInteger ciphertext = new BigInteger(1, message);
+        return stripLeadingZero(modPowPrivate(ciphertext, privateKey).toByteArray());
+    }
+
+    /**
+     * 使用公钥解密（验签），结果按指定长度在左侧补零
+     * 大整数会丢掉开头的 0x00 字节，已知原文长度时（例如 32 字节的摘要）需要补回来
+     * @param message 要解密的信息
+     * @param publicKey 公钥
+     * @param length 原文长度
+     * @return 解密后的字节数组
+     */
+    public static byte[] decrypt(byte[] message, RSAPublicKey publicKey, int length) {
+        return fitLength(decrypt(message, publicKey), length);
+    }
+
+    /**
+     * 使用私钥解密，结果按指定长度在左侧补零
+     * 大整数会丢掉开头的 0x00 字节，已知原文长度时（例如 16 字节的 AES Key）需要补回来
+     * @param message 要解密的信息
+     * @param privateKey 私钥
+     * @param length 原文长度
+     * @return 解密后的字节数组
+     */
+    public static byte[] decrypt(byte[] message, RSAPrivateKey privateKey, int length) {
+        return fitLength(decrypt(message, privateKey), length);
+    }
+
+    /**
+     * 在左侧补零到指定长度，超过指定长度时原样返回，由调用方按错误数据处理
+     */
+    private static byte[] fitLength(byte[] bytes, int length) {
+        if (bytes.length >= length) {
+            return bytes;
+        }
+        byte[] result = new byte[length];
+        System.arraycopy(bytes, 0, result, length - bytes.length, bytes.length);
+        return result;
+    }
 
-        // 去除前导的0字节
-        if (plaintextArray[0] == 0) {
-            byte[] truncatedArray = new byte[plaintextArray.length - 1];
-            System.arraycopy(plaintextArray, 1, truncatedArray, 0, truncatedArray.length);
+    /**
+     * 私钥模幂运算
+     * 直接计算 c^d mod n 需要一次 1024 位的模幂，而分别在模 p、模 q 下计算两次 512 位的模幂再合并，
+     * 模数和指数都减半，整体速度大约能快 3~4 倍
+     * 旧格式的私钥没有 CRT 参数，此时退回普通模幂
+     * @param input 输入
+     * @param privateKey 私钥
+     * @return input^d mod n
+     */
+    private static BigInteger modPowPrivate(BigInteger input, RSAPrivateKey privateKey) {
+        if (!privateKey.hasCrt()) {
+            return input.modPow(privateKey.getExponent(), privateKey.getModulus());
+        }
+        BigInteger p = privateKey.getP();
+        BigInteger q = privateKey.getQ();
+        // m1 = c^dP mod p, m2 = c^dQ mod q
+        BigInteger m1 = input.mod(p).modPow(privateKey.getDP(), p);
+        BigInteger m2 = input.mod(q).modPow(privateKey.getDQ(), q);
+        // h = qInv * (m1 - m2) mod p
+        BigInteger h = privateKey.getQInv().multiply(m1.subtract(m2)).mod(p);
+        // m = m2 + h * q
+        return m2.add(h.multiply(q));
+    }
+
+    /**
+     * 去除 BigInteger 符号位带来的前导 0 字节
+     * @param bytes 字节数组
+     * @return 去除前导 0 字节后的数组
+     */
+    private static byte[] stripLeadingZero(byte[] bytes) {
+        if (bytes[0] == 0) {
+            byte[] truncatedArray = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, truncatedArray, 0, truncatedArray.length);
             return truncatedArray;
         }
-        return plaintextArray;
+        return bytes;
     }
 
     /**
-     * 初始化公私钥
-     * @throws IOException
+     * 生成公私钥，只保存在内存中
      */
-    public synchronized void initializeRSA() throws IOException {
+    public synchronized void generateKey() {
         SecureRandom r = new SecureRandom();
         // 生成大素数 p
-        BigInteger p = BigInteger.probablePrime(bitlen / 2, r);
-        // 生成大素数 q
-        BigInteger q = BigInteger.probablePrime(bitlen / 2, r);
+        p = BigInteger.probablePrime(bitlen / 2, r);
+        // 生成大素数 q，保证与 p 不同
+        do {
+            q = BigInteger.probablePrime(bitlen / 2, r);
+        } while (q.equals(p));
         // n = p * q
         n = p.multiply(q);
         // 欧拉函数 m = (p-1)*(q-1)
@@ -83,49 +211,151 @@ public class SimpleRSA {
         e = new BigInteger("65537");
         // 私钥 d 为 e 在模 m 下的逆
         d = e.modInverse(m);
+        // 保留 CRT 参数，私钥运算时使用
+        dP = d.mod(p.subtract(BigInteger.ONE));
+        dQ = d.mod(q.subtract(BigInteger.ONE));
+        qInv = q.modInverse(p);
+    }
+
+    /**
+     * 初始化公私钥，生成后写入本地存储
+     * @throws IOException
+     */
+    public synchronized void initializeRSA() throws IOException {
+        generateKey();
 
         // 创建密钥存储目录
-        Files.createDirectories(Paths.get("keys"));
+        Files.createDirectories(Paths.get(KEY_DIR));
 
         // 将公私钥写入本地存储
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("keys/rsa.public.key"))) {
-            oos.writeObject(e);
-            oos.writeObject(n);
+        writeKeys(Paths.get(KEY_DIR, PUBLIC_KEY_FILE), Paths.get(KEY_DIR, PRIVATE_KEY_FILE));
+    }
+
+    /**
+     * 将已生成的公私钥写入指定文件，先写公钥再写私钥
+     * @param publicKeyFile 公钥文件
+     * @param privateKeyFile 私钥文件
+     * @throws IOException
+     */
+    public synchronized void writeKeys(Path publicKeyFile, Path privateKeyFile) throws IOException {
+        writeKeyFile(publicKeyFile, e, n);
+        writeKeyFile(privateKeyFile, d, n, p, q, dP, dQ, qInv);
+    }
+
+    public synchronized RSAPublicKey getPublicKey() {
+        return new RSAPublicKey(e, n);
+    }
+
+    public synchronized RSAPrivateKey getPrivateKey() {
+        return new RSAPrivateKey(d, n, p, q, dP, dQ, qInv);
+    }
+
+    /**
+     * 读取公钥
+     * @return 公钥
+     * @throws IOException
+     */
+    public static RSAPublicKey readPublicKey() throws IOException {
+        return readPublicKey(Paths.get(KEY_DIR, PUBLIC_KEY_FILE));
+    }
+
+    /**
+     * 读取指定文件中的公钥
+     * @param path 公钥文件
+     * @return 公钥
+     * @throws IOException
+     */
+    public static RSAPublicKey readPublicKey(Path path) throws IOException {
+        BigInteger[] components = readKeyFile(path);
+        return new RSAPublicKey(components[0], components[1]);
+    }
+
+    /**
+     * 读取私钥
+     * 旧格式的私钥文件只有 [d, n]，新格式还带有 CRT 参数 [p, q, dP, dQ, qInv]
+     * @return 私钥
+     * @throws IOException
+     */
+    public static RSAPrivateKey readPrivateKey() throws IOException {
+        return readPrivateKey(Paths.get(KEY_DIR, PRIVATE_KEY_FILE));
+    }
+
+    /**
+     * 读取指定文件中的私钥
+     * @param path 私钥文件
+     * @return 私钥
+     * @throws IOException
+     */
+    public static RSAPrivateKey readPrivateKey(Path path) throws IOException {
+        BigInteger[] c = readKeyFile(path);
+        if (c.length < 7) {
+            return new RSAPrivateKey(c[0], c[1]);
         }
+        return new RSAPrivateKey(c[0], c[1], c[2], c[3], c[4], c[5], c[6]);
+    }
 
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("keys/rsa.private.key"))) {
-            oos.writeObject(d);
-            oos.writeObject(n);
+    /**
+     * 写入密钥文件
+     * 先写临时文件再原子替换，避免监听密钥目录的一方读到写了一半的文件
+     * @param path 密钥文件路径
+     * @param components 密钥分量
+     * @throws IOException
+     */
+    private static void writeKeyFile(Path path, BigInteger... components) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            dos.writeInt(KEY_FILE_MAGIC);
+            dos.writeByte(KEY_FILE_VERSION);
+            dos.writeByte(components.length);
+            for (BigInteger component : components) {
+                byte[] bytes = component.toByteArray();
+                dos.writeInt(bytes.length);
+                dos.write(bytes);
+            }
         }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
     /**
-     * 读取公钥
-     * @return 公钥数组 [e, n]
+     * 读取密钥文件
+     * 兼容旧版本使用 ObjectOutputStream 写入的密钥文件
+     * @param path 密钥文件路径
+     * @return 密钥分量数组
      * @throws IOException
-     * @throws ClassNotFoundException
-     */
-    public static BigInteger[] readPublicKey() throws IOException, ClassNotFoundException {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("keys/rsa.public.key"))) {
-            // 读取公钥
-            BigInteger e = (BigInteger) ois.readObject();
-            // 读取模数
-            BigInteger n = (BigInteger) ois.readObject();
-            return new BigInteger[]{e, n};
+     */
+    private static BigInteger[] readKeyFile(Path path) throws IOException {
+        byte[] content = Files.readAllBytes(path);
+        try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (content.length < 6 || dis.readInt() != KEY_FILE_MAGIC) {
+                return readLegacyKeyFile(content);
+            }
+            int version = dis.readUnsignedByte();
+            if (version != KEY_FILE_VERSION) {
+                throw new IOException("不支持的密钥文件版本: " + version);
+            }
+            BigInteger[] components = new BigInteger[dis.readUnsignedByte()];
+            for (int i = 0; i < components.length; i++) {
+                byte[] bytes = new byte[dis.readInt()];
+                dis.readFully(bytes);
+                components[i] = new BigInteger(bytes);
+            }
+            return components;
         }
     }
 
     /**
-     * 读取私钥
-     * @return 私钥数组 [d, n]
+     * 读取旧版 Java 序列化格式的密钥文件
+     * @param content 文件内容
+     * @return 密钥分量数组
      * @throws IOException
-     * @throws ClassNotFoundException
      */
-    public static BigInteger[] readPrivateKey() throws IOException, ClassNotFoundException {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("keys/rsa.private.key"))) {
-            BigInteger d = (BigInteger) ois.readObject();
-            BigInteger n = (BigInteger) ois.readObject();
-            return new BigInteger[]{d, n};
+    private static BigInteger[] readLegacyKeyFile(byte[] content) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(content))) {
+            BigInteger first = (BigInteger) ois.readObject();
+            BigInteger second = (BigInteger) ois.readObject();
+            return new BigInteger[]{first, second};
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("无法识别的密钥文件格式", ex);
         }
     }
 
@@ -139,13 +369,13 @@ public class SimpleRSA {
             System.out.println("Plaintext: " + Arrays.toString(text1));
 
             // Read public key
-            BigInteger[] publicKey = readPublicKey();
-            byte[] ciphertext = encrypt(text1, publicKey[0], publicKey[1]);
+            RSAPublicKey publicKey = readPublicKey();
+            byte[] ciphertext = encrypt(text1, publicKey);
             System.out.println("Ciphertext: " + Arrays.toString(ciphertext));
 
             // Read private key
-            BigInteger[] privateKey = readPrivateKey();
-            byte[] plaintext = decrypt(ciphertext, privateKey[0], privateKey[1]);
+            RSAPrivateKey privateKey = readPrivateKey();
+            byte[] plaintext = decrypt(ciphertext, privateKey);
             System.out.println("Decrypted: " + Arrays.toString(plaintext));
 
         } catch (Exception e) {
@@ -1,5 +1,6 @@
 package com.example.encrypttransweb.utils;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
@@ -15,7 +16,7 @@ import java.util.Arrays;
  *          3. 抗碰撞性
  * <p>
  * 基本步骤
- *  1. 消息填充。将输入填充到模 512 的余数为 448 位（padMessage 方法）,填充完成的消息末尾附加上原始消息的长度。
+ *  1. 消息填充。将输入填充到模 512 的余数为 448 位（digest 方法）,填充完成的消息末尾附加上原始消息的长度。
  *      填充方式：加一个 1 位 和 n 个 0 位
  *
  *      为什么要填充 1 个 1 和 n 个 0？
@@ -78,6 +79,11 @@ import java.util.Arrays;
  *              然后按照规则，将这两个临时值和前面计算得到的其他 Hash 值依次更新
  *
  *  6. 生成最终哈希。所有块处理完之后，缓冲区中的值就是最终哈希值
+ * <p>
+ * 使用方式和 MessageDigest 类似，可以分多次 update 输入数据，最后调用 digest 得到哈希值：
+ *  数据凑满 64 字节就立即压缩，不足 64 字节的部分暂存在缓冲区，只有最后一个块需要填充，
+ *  所以多段数据不需要先拼接成一个数组，也不会复制整个输入
+ * 实例不是线程安全的，每个线程使用各自的实例
  */
 public class SimpleSHA {
     // 常量 K 数组，64 个 32 位常量
@@ -109,88 +115,139 @@ public class SimpleSHA {
     private static final int H6 = 0x1f83d9ab;
     private static final int H7 = 0x5be0cd19;
 
+
+    // 当前哈希值
+    private final int[] h = new int[8];
+    // 消息扩展使用的 64 个 32 位整数，每个块重复使用
+    private final int[] w = new int[64];
+    // 不足 64 字节的数据暂存在这里，等凑满一个块再压缩
+    private final byte[] buffer = new byte[64];
+    private int bufferLength;
+    // 已输入的总字节数，填充时附加在消息末尾
+    private long byteCount;
+
+    public SimpleSHA() {
+        reset();
+    }
+
+    /**
+     * 复制另一个实例的当前状态，之后两个实例各自输入互不影响
+     * 用于保存处理过固定前缀后的中间状态，重复计算时不必每次都压缩这段前缀（例如 SimpleHMAC 的 ipad、opad 块）
+     * @param other 被复制的实例
+     */
+    public SimpleSHA(SimpleSHA other) {
+        System.arraycopy(other.h, 0, h, 0, h.length);
+        System.arraycopy(other.buffer, 0, buffer, 0, other.bufferLength);
+        bufferLength = other.bufferLength;
+        byteCount = other.byteCount;
+    }
+
     /**
      * 计算 SHA-256 哈希值
      * @param input 输入的字节数组
      * @return 哈希值的字节数组
      */
     public static byte[] sha256(byte[] input) {
+        SimpleSHA sha = new SimpleSHA();
+        sha.update(input, 0, input.length);
+        return sha.digest();
+    }
+
+    /**
+     * 重置为初始状态
+     */
+    public void reset() {
         // 初始化哈希值
-        int[] h = {H0, H1, H2, H3, H4, H5, H6, H7};
-
-        // 对消息进行填充
-        byte[] padded = padMessage(input);
-        int[] w = new int[64];
-
-        // 将填充后的消息拆分成 64 个字节（512位）大小的消息块，并单独处理
-        for (int i = 0; i < padded.length; i += 64) {
-            // 每个消息块再次分别处理
-            // 将消息块再次拆分成 16 个 4 字节的小块，然后对其进行拼合，组成 16 个 32 位的整数
-            for (int t = 0; t < 16; t++) {
-                w[t] = ((padded[i + t * 4] & 0xFF) << 24) | ((padded[i + t * 4 + 1] & 0xFF) << 16) |
-                        ((padded[i + t * 4 + 2] & 0xFF) << 8) | (padded[i + t * 4 + 3] & 0xFF);
-            }
-            // 扩展消息块，将上面生成的 16 个 32 位整数通过旋转、位移等操作扩展为 64 个 32 为整数
-            // 从这里开始，非线性函数扩展消息块的主要目的就是 增加 数据之间的混淆性，增强散列函数的抗碰撞性
-            for (int t = 16; t < 64; t++) {
-                int s0 = Integer.rotateRight(w[t - 15], 7) ^ Integer.rotateRight(w[t - 15], 18) ^ (w[t - 15] >>> 3);
-                int s1 = Integer.rotateRight(w[t - 2], 17) ^ Integer.rotateRight(w[t - 2], 19) ^ (w[t - 2] >>> 10);
-                w[t] = w[t - 16] + s0 + w[t - 7] + s1;
-            }
+        h[0] = H0;
+        h[1] = H1;
+        h[2] = H2;
+        h[3] = H3;
+        h[4] = H4;
+        h[5] = H5;
+        h[6] = H6;
+        h[7] = H7;
+        bufferLength = 0;
+        byteCount = 0;
+    }
 
-            // 初始化工作变量，也就是最初始的 hash 值，接下来的消息压缩操作的就是使用算法不停的更新原始的 hash 值
-            // 这也是为什么不论原始消息长度为多少，经过 SHA256 处理之后的结果长度都是固定的 256 位的原因
-            int a = h[0];
-            int b = h[1];
-            int c = h[2];
-            int d = h[3];
-            int e = h[4];
-            int f = h[5];
-            int g = h[6];
-            int hh = h[7];
-
-            // 消息压缩循环（算法最核心的处理过程）
-            // 大致过程：
-            // 对第 0 个和第 4 个 Hash 值（也就是 a 和 e，它们每层迭代都在变化的）进行旋转位移操作。（增加非线性）
-            // 对 e 的处理结果，结合 f 和 g，这 3 个 Hash 运行选择函数（也就是 ch 变量。根据 e 的值，从 f 和 g 中选择一个输出）
-            // 对 a 的处理结果，结合 b 和 c，这 3 个 Hash 运行多数函数（也就是 maj 变量。输出 a、b、c 三个数的出现最多的位）
-            // 以上这两步操作，是 Hash 算法的不可逆性质的关键。
-            //  简单说，从两个已知的数中根据规则得到一个数简单，但是根据结果想要逆推出两个数，那可能性就太多了
-            //  多数函数更容易理解，a、b、c 三个数中出现最多的位
-            //      比如第 0 位出现最多的是 1，第 1 位出现最多的是 0，第 2 位出现最多的是 0，
-            //      只知道每一位出现最多的数字，那是 3 个 256 位的数字对比的结果，还经过多轮迭代，逆推是完全不现实的。
-            // 最后一步计算就是简单的计算，
-            //  h（由于命名和冲突，也就是下面的 hh） 和 w 两个 Hash 加上当前迭代轮的常量 K 再加上前两步的计算结果，得到一个临时值
-            //  多数函数的结果和 S0 组成第二个临时变量
-            // 然后按照规则，将这两个临时值和前面计算得到的其他 Hash 值依次更新
-            for (int t = 0; t < 64; t++) {
-                int S1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
-                int ch = (e & f) ^ ((~e) & g);
-                int temp1 = hh + S1 + ch + K[t] + w[t];
-                int S0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
-                int maj = (a & b) ^ (a & c) ^ (b & c);
-                int temp2 = S0 + maj;
-
-                hh = g;
-                g = f;
-                f = e;
-                e = d + temp1;
-                d = c;
-                c = b;
-                b = a;
-                a = temp1 + temp2;
+    /**
+     * 输入数据
+     * @param input 输入的字节数组
+     */
+    public void update(byte[] input) {
+        update(input, 0, input.length);
+    }
+
+    /**
+     * 输入数据
+     * @param input 输入的字节数组
+     * @param offset 起始位置
+     * @param length 长度
+     */
+    public void update(byte[] input, int offset, int length) {
+        byteCount += length;
+        // 先补满缓冲区中剩余的块
+        if (bufferLength > 0) {
+            int n = Math.min(64 - bufferLength, length);
+            System.arraycopy(input, offset, buffer, bufferLength, n);
+            bufferLength += n;
+            offset += n;
+            length -= n;
+            if (bufferLength < 64) {
+                return;
             }
+            processBlock(buffer, 0);
+            bufferLength = 0;
+        }
+        // 完整的块直接在输入数组上压缩，不复制
+        while (length >= 64) {
+            processBlock(input, offset);
+            offset += 64;
+            length -= 64;
+        }
+        // 剩余不足一个块的部分暂存
+        System.arraycopy(input, offset, buffer, 0, length);
+        bufferLength = length;
+    }
+
+    /**
+     * 输入数据，读取 position 到 limit 之间的内容，读取后 position 移动到 limit
+     * @param input 输入
+     */
+    public void update(ByteBuffer input) {
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            input.position(input.limit());
+            return;
+        }
+        byte[] chunk = new byte[Math.min(input.remaining(), 4096)];
+        while (input.hasRemaining()) {
+            int n = Math.min(chunk.length, input.remaining());
+            input.get(chunk, 0, n);
+            update(chunk, 0, n);
+        }
+    }
+
+    /**
+     * 完成计算，对最后一个块进行填充并返回哈希值，之后恢复为初始状态可以继续使用
+     * 填充方式：加一个 1 位（0x80）和 n 个 0 位，使长度满足模 64 字节余 56，再附加 8 字节的原始消息位长度
+     * @return 哈希值的字节数组
+     */
+    public byte[] digest() {
+        long bitLength = byteCount * 8;
 
-            // 每次循环结束，更新哈希值
-            h[0] += a;
-            h[1] += b;
-            h[2] += c;
-            h[3] += d;
-            h[4] += e;
-            h[5] += f;
-            h[6] += g;
-            h[7] += hh;
+        buffer[bufferLength++] = (byte) 0x80;
+        // 剩余空间放不下 8 字节长度，需要再多填充一个块
+        if (bufferLength > 56) {
+            Arrays.fill(buffer, bufferLength, 64, (byte) 0);
+            processBlock(buffer, 0);
+            bufferLength = 0;
         }
+        Arrays.fill(buffer, bufferLength, 56, (byte) 0);
+        for (int i = 0; i < 8; i++) {
+            buffer[63 - i] = (byte) (bitLength >>> (i * 8));
+        }
+        processBlock(buffer, 0);
 
         // 生成最终的哈希值
         byte[] hash = new byte[32];
@@ -201,28 +258,82 @@ public class SimpleSHA {
             hash[i * 4 + 3] = (byte) (h[i] & 0xFF);
         }
 
+        reset();
         return hash;
     }
 
     /**
-     * 对消息进行填充
-     * @param input 输入的字节数组
-     * @return 填充后的字节数组
+     * 压缩一个 64 字节（512位）的消息块
+     * @param block 数据
+     * @param offset 消息块起始位置
      */
-    private static byte[] padMessage(byte[] input) {
-        int originalLength = input.length;
-        int padLength = 64 - (originalLength % 64);
-        if (padLength < 9) padLength += 64;
+    private void processBlock(byte[] block, int offset) {
+        // 每个消息块再次分别处理
+        // 将消息块再次拆分成 16 个 4 字节的小块，然后对其进行拼合，组成 16 个 32 位的整数
+        for (int t = 0; t < 16; t++) {
+            w[t] = ((block[offset + t * 4] & 0xFF) << 24) | ((block[offset + t * 4 + 1] & 0xFF) << 16) |
+                    ((block[offset + t * 4 + 2] & 0xFF) << 8) | (block[offset + t * 4 + 3] & 0xFF);
+        }
+        // 扩展消息块，将上面生成的 16 个 32 位整数通过旋转、位移等操作扩展为 64 个 32 为整数
+        // 从这里开始，非线性函数扩展消息块的主要目的就是 增加 数据之间的混淆性，增强散列函数的抗碰撞性
+        for (int t = 16; t < 64; t++) {
+            int s0 = Integer.rotateRight(w[t - 15], 7) ^ Integer.rotateRight(w[t - 15], 18) ^ (w[t - 15] >>> 3);
+            int s1 = Integer.rotateRight(w[t - 2], 17) ^ Integer.rotateRight(w[t - 2], 19) ^ (w[t - 2] >>> 10);
+            w[t] = w[t - 16] + s0 + w[t - 7] + s1;
+        }
 
-        byte[] padded = Arrays.copyOf(input, originalLength + padLength);
-        padded[originalLength] = (byte) 0x80;
+        // 初始化工作变量，也就是最初始的 hash 值，接下来的消息压缩操作的就是使用算法不停的更新原始的 hash 值
+        // 这也是为什么不论原始消息长度为多少，经过 SHA256 处理之后的结果长度都是固定的 256 位的原因
+        int a = h[0];
+        int b = h[1];
+        int c = h[2];
+        int d = h[3];
+        int e = h[4];
+        int f = h[5];
+        int g = h[6];
+        int hh = h[7];
 
-        long bitLength = (long) originalLength * 8;
-        for (int i = 0; i < 8; i++) {
-            padded[padded.length - 1 - i] = (byte) (bitLength >>> (i * 8));
+        // 消息压缩循环（算法最核心的处理过程）
+        // 大致过程：
+        // 对第 0 个和第 4 个 Hash 值（也就是 a 和 e，它们每层迭代都在变化的）进行旋转位移操作。（增加非线性）
+        // 对 e 的处理结果，结合 f 和 g，这 3 个 Hash 运行选择函数（也就是 ch 变量。根据 e 的值，从 f 和 g 中选择一个输出）
+        // 对 a 的处理结果，结合 b 和 c，这 3 个 Hash 运行多数函数（也就是 maj 变量。输出 a、b、c 三个数的出现最多的位）
+        // 以上这两步操作，是 Hash 算法的不可逆性质的关键。
+        //  简单说，从两个已知的数中根据规则得到一个数简单，但是根据结果想要逆推出两个数，那可能性就太多了
+        //  多数函数更容易理解，a、b、c 三个数中出现最多的位
+        //      比如第 0 位出现最多的是 1，第 1 位出现最多的是 0，第 2 位出现最多的是 0，
+        //      只知道每一位出现最多的数字，那是 3 个 256 位的数字对比的结果，还经过多轮迭代，逆推是完全不现实的。
+        // 最后一步计算就是简单的计算，
+        //  h（由于命名和冲突，也就是下面的 hh） 和 w 两个 Hash 加上当前迭代轮的常量 K 再加上前两步的计算结果，得到一个临时值
+        //  多数函数的结果和 S0 组成第二个临时变量
+        // 然后按照规则，将这两个临时值和前面计算得到的其他 Hash 值依次更新
+        for (int t = 0; t < 64; t++) {
+            int S1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+            int ch = (e & f) ^ ((~e) & g);
+            int temp1 = hh + S1 + ch + K[t] + w[t];
+            int S0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+            int maj = (a & b) ^ (a & c) ^ (b & c);
+            int temp2 = S0 + maj;
+
+            hh = g;
+            g = f;
+            f = e;
+            e = d + temp1;
+            d = c;
+            c = b;
+            b = a;
+            a = temp1 + temp2;
         }
 
-        return padded;
+        // 每次循环结束，更新哈希值
+        h[0] += a;
+        h[1] += b;
+        h[2] += c;
+        h[3] += d;
+        h[4] += e;
+        h[5] += f;
+        h[6] += g;
+        h[7] += hh;
     }
 
     /**
@@ -246,5 +357,11 @@ public class SimpleSHA {
         String message = "Hello SHA256";
         byte[] hash = sha256(message.getBytes(StandardCharsets.UTF_8));
         System.out.println("Hash: " + bytesToHex(hash));
+
+        // 分段输入，结果与一次性输入相同
+        SimpleSHA sha = new SimpleSHA();
+        sha.update("Hello ".getBytes(StandardCharsets.UTF_8));
+        sha.update(ByteBuffer.wrap("SHA256".getBytes(StandardCharsets.UTF_8)));
+        System.out.println("Hash: " + bytesToHex(sha.digest()));
     }
 }
@@ -0,0 +1,471 @@
+package com.example.encrypttransweb.load;
+
+import com.example.encrypttransweb.EncryptTransWebApplication;
+import com.example.encrypttransweb.bean.CipherData;
+import com.example.encrypttransweb.bean.PlainData;
+import com.example.encrypttransweb.config.BinaryMessageHandler;
+import com.example.encrypttransweb.service.CipherFrameCodec;
+import com.example.encrypttransweb.service.CryptoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.*;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 端到端压测
+ * 在当前进程内以随机端口启动应用，按指定的并发数、数据大小分布和时长，
+ * 分别压测 REST 接口（/encrypt-api/encrypt、/decrypt-api/decrypt）、STOMP 接口（/app/encrypt、/app/decrypt）
+ * 和原生 WebSocket 二进制接口（/ws-binary），
+ * 输出吞吐量和 p50 / p99 / p999 延迟，以及 HdrHistogram 的完整延迟分布，不依赖任何外部服务
+ * <p>
+ * 每个并发线程都是闭环的：发出请求、等到响应后再发下一个
+ * STOMP 的响应只回复给发出请求的会话，每个并发线程使用各自的会话，响应和请求一一对应
+ * <p>
+ * 压测的是整个应用而不是单个算法，不是 JMH 基准测试，不需要 jmh profile；各算法的基准测试见 src/jmh/java 中的 benchmark 包
+ * 运行方式：mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.encrypttransweb.load.LoadGenerator
+ * 可选参数（-Dexec.args="..."）：
+ *  --transport=rest,stomp,websocket 压测的接口
+ *  --operation=encrypt,decrypt 压测的操作
+ *  --concurrency=8            并发数
+ *  --duration=20              每项压测时长（秒）
+ *  --warmup=5                 每项预热时长（秒），不计入结果
+ *  --sizes=64:60,1024:30,4096:10 原始数据大小（字节）和权重
+ *  --histogram=false          是否输出完整的延迟分布
+ *  --session=false            是否使用会话密钥：样本带上同一个会话的 sessionId，加解密不再做 RSA 运算
+ */
+public class LoadGenerator {
+
+    // 每种大小预先生成的样本数
+    private static final int SAMPLES_PER_SIZE = 64;
+    private static final long RESPONSE_TIMEOUT_SECONDS = 30;
+
+    /**
+     * 一次压测使用的数据：原始数据和对应的密文数据包（JSON 和二进制帧两种形式），原始数据各不相同
+     */
+    private record Sample(PlainData plainData, CipherData cipherData, byte[] cipherFrame) {
+    }
+
+    /**
+     * 压测的客户端，每个并发线程使用自己的 worker 编号
+     */
+    private interface Client extends AutoCloseable {
+        CipherData encrypt(int worker, Sample sample) throws Exception;
+
+        PlainData decrypt(int worker, Sample sample) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        List<String> transports = List.of(options.getOrDefault("transport", "rest,stomp,websocket").split(","));
+        List<String> operations = List.of(options.getOrDefault("operation", "encrypt,decrypt").split(","));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "20"));
+        long warmupSeconds = Long.parseLong(options.getOrDefault("warmup", "5"));
+        boolean printHistogram = Boolean.parseBoolean(options.getOrDefault("histogram", "false"));
+        int[][] sizes = parseSizes(options.getOrDefault("sizes", "64:60,1024:30,4096:10"));
+        boolean session = Boolean.parseBoolean(options.getOrDefault("session", "false"));
+
+        ConfigurableApplicationContext context = SpringApplication.run(EncryptTransWebApplication.class,
+                "--server.port=0", "--spring.main.banner-mode=off", "--logging.level.root=WARN");
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<Sample>[] samples = createSamples(context.getBean(CryptoService.class), sizes, session);
+            int[] weights = Arrays.stream(sizes).mapToInt(size -> size[1]).toArray();
+
+            System.out.printf("port=%d concurrency=%d duration=%ds warmup=%ds sizes=%s session=%s%n",
+                    port, concurrency, durationSeconds, warmupSeconds, options.getOrDefault("sizes", "64:60,1024:30,4096:10"), session);
+            System.out.printf("%-9s %-8s %10s %10s %10s %10s %10s %8s%n",
+                    "transport", "op", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "errors");
+            for (String transport : transports) {
+                try (Client client = createClient(transport, port, concurrency)) {
+                    for (String operation : operations) {
+                        run(client, operation, samples, weights, concurrency, warmupSeconds, null);
+                        Histogram histogram = new ConcurrentHistogram(3);
+                        Result result = run(client, operation, samples, weights, concurrency, durationSeconds, histogram);
+                        System.out.printf("%-9s %-8s %10.0f %10.3f %10.3f %10.3f %10.3f %8d%n", transport, operation,
+                                result.requests / (double) durationSeconds,
+                                histogram.getValueAtPercentile(50) / 1000.0,
+                                histogram.getValueAtPercentile(99) / 1000.0,
+                                histogram.getValueAtPercentile(99.9) / 1000.0,
+                                histogram.getMaxValue() / 1000.0,
+                                result.errors);
+                        if (printHistogram) {
+                            System.out.println("-- " + transport + " " + operation + " latency (ms) --");
+                            histogram.outputPercentileDistribution(System.out, 1000.0);
+                        }
+                    }
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private record Result(long requests, long errors) {
+    }
+
+    private static Client createClient(String transport, int port, int concurrency) throws Exception {
+        switch (transport) {
+            case "rest":
+                return new RestClient(port);
+            case "stomp":
+                return new StompClient(port, concurrency);
+            case "websocket":
+                return new BinaryClient(port, concurrency);
+            default:
+                throw new IllegalArgumentException("不支持的 transport: " + transport);
+        }
+    }
+
+    /**
+     * 闭环压测指定时长，histogram 为空时只预热不记录
+     */
+    private static Result run(Client client, String operation, List<Sample>[] samples, int[] weights,
+                              int concurrency, long seconds, Histogram histogram) throws InterruptedException {
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        int totalWeight = Arrays.stream(weights).sum();
+        boolean encrypt = operation.equals("encrypt");
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    List<Sample> pool = samples[pick(weights, totalWeight, random)];
+                    Sample sample = pool.get(random.nextInt(pool.size()));
+                    long start = System.nanoTime();
+                    try {
+                        if (encrypt) {
+                            client.encrypt(worker, sample);
+                        } else {
+                            PlainData plainData = client.decrypt(worker, sample);
+                            if (!sample.plainData.getPlainText().equals(plainData.getPlainText())) {
+                                throw new IllegalStateException("解密结果不一致");
+                            }
+                        }
+                        if (histogram != null) {
+                            histogram.recordValue((System.nanoTime() - start) / 1000);
+                        }
+                        requests.increment();
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                }
+            }, "load-" + i);
+            workers.add(thread);
+            thread.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new Result(requests.sum(), errors.sum());
+    }
+
+    private static int pick(int[] weights, int totalWeight, Random random) {
+        int value = random.nextInt(totalWeight);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * 每种大小生成一批原始数据各不相同的样本，并预先加密好，供解密压测使用
+     * session 为 true 时先建立一个会话，所有样本都带上它的 sessionId，并用会话密钥加密
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Sample>[] createSamples(CryptoService cryptoService, int[][] sizes, boolean session) throws Exception {
+        String sessionId = session ? cryptoService.openSession(null).getSessionId() : null;
+        List<Sample>[] samples = new List[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            samples[i] = new ArrayList<>();
+            for (int j = 0; j < SAMPLES_PER_SIZE; j++) {
+                StringBuilder text = new StringBuilder("#" + sizes[i][0] + "-" + j + "-");
+                while (text.length() < sizes[i][0]) {
+                    text.append((char) ('a' + text.length() % 26));
+                }
+                text.setLength(sizes[i][0]);
+                String plainText = text.toString();
+                PlainData plainData = new PlainData(plainText);
+                plainData.setSessionId(sessionId);
+                CipherData cipherData = cryptoService.encrypt(plainText.getBytes(StandardCharsets.UTF_8), sessionId);
+                samples[i].add(new Sample(plainData, cipherData, CipherFrameCodec.encode(cryptoService.toCipherPacket(cipherData))));
+            }
+        }
+        return samples;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static int[][] parseSizes(String value) {
+        return Arrays.stream(value.split(","))
+                .map(item -> item.split(":"))
+                .map(item -> new int[]{Integer.parseInt(item[0]), item.length > 1 ? Integer.parseInt(item[1]) : 1})
+                .toArray(int[][]::new);
+    }
+
+    /**
+     * REST 接口客户端
+     */
+    private static final class RestClient implements Client {
+        private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final String baseUrl;
+
+        private RestClient(int port) {
+            this.baseUrl = "http://localhost:" + port;
+        }
+
+        @Override
+        public CipherData encrypt(int worker, Sample sample) throws Exception {
+            return post("/encrypt-api/encrypt", sample.plainData, CipherData.class);
+        }
+
+        @Override
+        public PlainData decrypt(int worker, Sample sample) throws Exception {
+            return post("/decrypt-api/decrypt", sample.cipherData, PlainData.class);
+        }
+
+        private <T> T post(String path, Object body, Class<T> type) throws Exception {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP " + response.statusCode());
+            }
+            return objectMapper.readValue(response.body(), type);
+        }
+
+        @Override
+        public void close() {
+            // Java 17 的 HttpClient 不需要关闭
+        }
+    }
+
+    /**
+     * STOMP 接口客户端
+     * 每个并发线程使用各自的会话（同一个会话不能并发发送），订阅本会话的 /user/queue/encrypted 和 /user/queue/decrypted，
+     * 压测是闭环的，每个会话同时只有一个请求，收到的响应就是该请求的响应
+     */
+    private static final class StompClient implements Client {
+        private final WebSocketStompClient stompClient;
+        private final List<Session> sessions = new ArrayList<>();
+
+        private StompClient(int port, int concurrency) throws Exception {
+            WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+            container.setDefaultMaxTextMessageBufferSize(4 * 1024 * 1024);
+            stompClient = new WebSocketStompClient(new StandardWebSocketClient(container));
+            stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+            stompClient.setInboundMessageSizeLimit(16 * 1024 * 1024);
+            String url = "ws://localhost:" + port + "/ws/websocket";
+
+            for (int i = 0; i < concurrency; i++) {
+                Session session = new Session(stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+                }).get(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                session.awaitSubscriptions();
+                sessions.add(session);
+            }
+        }
+
+        @Override
+        public CipherData encrypt(int worker, Sample sample) throws Exception {
+            return sessions.get(worker).encrypt(sample.plainData, RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public PlainData decrypt(int worker, Sample sample) throws Exception {
+            return sessions.get(worker).decrypt(sample.cipherData, RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void close() {
+            for (Session session : sessions) {
+                session.stompSession.disconnect();
+            }
+            stompClient.stop();
+        }
+    }
+
+    /**
+     * 一个 STOMP 会话和它正在等待的响应
+     */
+    private static final class Session {
+        private final StompSession stompSession;
+        private final AtomicReference<CompletableFuture<CipherData>> pendingEncrypt = new AtomicReference<>();
+        private final AtomicReference<CompletableFuture<PlainData>> pendingDecrypt = new AtomicReference<>();
+
+        private Session(StompSession stompSession) {
+            this.stompSession = stompSession;
+            subscribe("/user/queue/encrypted", CipherData.class, pendingEncrypt);
+            subscribe("/user/queue/decrypted", PlainData.class, pendingDecrypt);
+        }
+
+        private <T> void subscribe(String destination, Class<T> type, AtomicReference<CompletableFuture<T>> pending) {
+            stompSession.subscribe(destination, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return type;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    CompletableFuture<T> future = pending.getAndSet(null);
+                    if (future != null) {
+                        future.complete((T) payload);
+                    }
+                }
+            });
+        }
+
+        private CipherData encrypt(PlainData plainData, long timeout, TimeUnit unit) throws Exception {
+            return request(pendingEncrypt, "/app/encrypt", plainData, timeout, unit);
+        }
+
+        private PlainData decrypt(CipherData cipherData, long timeout, TimeUnit unit) throws Exception {
+            return request(pendingDecrypt, "/app/decrypt", cipherData, timeout, unit);
+        }
+
+        private <T> T request(AtomicReference<CompletableFuture<T>> pending, String destination, Object payload,
+                              long timeout, TimeUnit unit) throws Exception {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            pending.set(future);
+            stompSession.send(destination, payload);
+            try {
+                return future.get(timeout, unit);
+            } finally {
+                pending.compareAndSet(future, null);
+            }
+        }
+
+        /**
+         * 等待订阅生效
+         * 内置的简单消息代理不回复订阅确认（RECEIPT），这里反复发送一次加密再解密的探测请求，直到两个订阅都收到响应
+         */
+        private void awaitSubscriptions() throws Exception {
+            String probe = "probe-" + UUID.randomUUID();
+            long deadline = System.nanoTime() + RESPONSE_TIMEOUT_SECONDS * 1_000_000_000L;
+            while (System.nanoTime() < deadline) {
+                try {
+                    CipherData cipherData = encrypt(new PlainData(probe), 500, TimeUnit.MILLISECONDS);
+                    if (probe.equals(decrypt(cipherData, 500, TimeUnit.MILLISECONDS).getPlainText())) {
+                        return;
+                    }
+                } catch (TimeoutException e) {
+                    // 订阅还没有生效，重试
+                }
+            }
+            throw new TimeoutException("订阅 /user/queue/encrypted、/user/queue/decrypted 超时");
+        }
+    }
+
+    /**
+     * 原生 WebSocket 二进制接口客户端，每个并发线程使用各自的连接，响应按请求 ID 对应
+     */
+    private static final class BinaryClient implements Client {
+        private final List<WebSocketSession> sessions = new ArrayList<>();
+        private final Map<Long, CompletableFuture<ByteBuffer>> pending = new ConcurrentHashMap<>();
+        private final AtomicLong requestIds = new AtomicLong();
+
+        private BinaryClient(int port, int concurrency) throws Exception {
+            WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+            container.setDefaultMaxBinaryMessageBufferSize(4 * 1024 * 1024);
+            StandardWebSocketClient client = new StandardWebSocketClient(container);
+            BinaryWebSocketHandler handler = new BinaryWebSocketHandler() {
+                @Override
+                protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+                    ByteBuffer response = message.getPayload();
+                    response.get();
+                    CompletableFuture<ByteBuffer> future = pending.remove(response.getLong());
+                    if (future != null) {
+                        future.complete(response);
+                    }
+                }
+            };
+            for (int i = 0; i < concurrency; i++) {
+                sessions.add(client.execute(handler, "ws://localhost:" + port + "/ws-binary").get(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+        }
+
+        @Override
+        public CipherData encrypt(int worker, Sample sample) throws Exception {
+            request(worker, BinaryMessageHandler.OP_ENCRYPT, sample.plainData.getPlainText().getBytes(StandardCharsets.UTF_8));
+            // 压测只关心耗时，加密结果不需要转换回 JSON 形式
+            return null;
+        }
+
+        @Override
+        public PlainData decrypt(int worker, Sample sample) throws Exception {
+            byte[] plainText = request(worker, BinaryMessageHandler.OP_DECRYPT, sample.cipherFrame);
+            return new PlainData(new String(plainText, StandardCharsets.UTF_8));
+        }
+
+        private byte[] request(int worker, int op, byte[] payload) throws Exception {
+            long requestId = requestIds.incrementAndGet();
+            CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+            pending.put(requestId, future);
+            ByteBuffer request = ByteBuffer.allocate(9 + payload.length);
+            request.put((byte) op).putLong(requestId).put(payload);
+            try {
+                sessions.get(worker).sendMessage(new BinaryMessage(request.array()));
+                ByteBuffer response = future.get(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                int status = response.get();
+                byte[] result = new byte[response.remaining()];
+                response.get(result);
+                if (status != BinaryMessageHandler.STATUS_OK) {
+                    throw new IllegalStateException(new String(result, StandardCharsets.UTF_8));
+                }
+                return result;
+            } finally {
+                pending.remove(requestId);
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+            for (WebSocketSession session : sessions) {
+                session.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.encrypttransweb.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 请求指标按 transport、operation 缓存后，重复记录累加到同一个指标上，标签与之前逐次注册时一致
+ */
+class CryptoMetricsTest {
+
+    @Test
+    void reusesRequestMetersPerTransportAndOperation() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CryptoMetrics metrics = new CryptoMetrics(registry);
+
+        for (int i = 0; i < 3; i++) {
+            metrics.recordPayload(CryptoMetrics.REST, "encrypt", 10);
+            metrics.timeRequest(CryptoMetrics.REST, "encrypt", () -> null);
+        }
+        metrics.recordPayload(CryptoMetrics.STOMP, "encrypt", 7);
+        assertThrows(IllegalStateException.class, () -> metrics.timeRequest(CryptoMetrics.REST, "encrypt", () -> {
+            throw new IllegalStateException();
+        }));
+        metrics.recordFailure(CryptoMetrics.REST, "encrypt", new IllegalArgumentException());
+
+        assertEquals(1, registry.find("crypto.payload.bytes").tags("transport", CryptoMetrics.REST, "operation", "encrypt").counters().size());
+        assertEquals(30, registry.get("crypto.payload.bytes").tags("transport", CryptoMetrics.REST, "operation", "encrypt").counter().count());
+        assertEquals(7, registry.get("crypto.payload.bytes").tags("transport", CryptoMetrics.STOMP).counter().count());
+        assertEquals(3, registry.get("crypto.requests").tags("transport", CryptoMetrics.REST, "outcome", "success").timer().count());
+        assertEquals(1, registry.get("crypto.requests").tags("transport", CryptoMetrics.REST, "outcome", "failure").timer().count());
+        assertEquals(1, registry.get("crypto.failures").tags("exception", "IllegalStateException").counter().count());
+        assertEquals(1, registry.get("crypto.failures").tags("exception", "IllegalArgumentException").counter().count());
+    }
+
+    @Test
+    void bindsTransportForStageTimers() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CryptoMetrics metrics = new CryptoMetrics(registry);
+
+        metrics.inTransport(CryptoMetrics.WEBSOCKET, () -> metrics.time(CryptoMetrics.Stage.SHA256, () -> null));
+        metrics.time(CryptoMetrics.Stage.SHA256, () -> null);
+
+        assertEquals(1, registry.get("crypto.stage").tags("stage", "sha256", "transport", CryptoMetrics.WEBSOCKET).timer().count());
+        // 绑定只在 inTransport 期间有效
+        assertEquals(1, registry.get("crypto.stage").tags("stage", "sha256", "transport", CryptoMetrics.NONE).timer().count());
+        // inTransport 不记录请求耗时
+        assertEquals(0, registry.find("crypto.requests").timers().size());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.encrypttransweb.service;
+
+import com.example.encrypttransweb.bean.CipherPacket;
+import com.example.encrypttransweb.utils.SimpleAES;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CipherFrameCodec 的帧格式：魔数、版本、TLV 字段，以及对不完整和格式错误的帧的处理
+ */
+class CipherFrameCodecTest {
+
+    @Test
+    void frameStartsWithMagicAndVersion() {
+        byte[] frame = CipherFrameCodec.encode(packet());
+        assertArrayEquals(new byte[]{'E', 'T', 'F', CipherFrameCodec.VERSION}, Arrays.copyOf(frame, 4));
+        // 第一个字段是密文：标签 1，4 字节大端长度
+        assertEquals(1, frame[4]);
+        assertEquals(packet().getCipherText().length, ByteBuffer.wrap(frame, 5, 4).getInt());
+    }
+
+    @Test
+    void roundTripsFieldsLargerThanShortLength() {
+        CipherPacket packet = packet();
+        packet.setCipherText(fill(new byte[70_000]));
+
+        CipherPacket decoded = CipherFrameCodec.decode(CipherFrameCodec.encode(packet));
+        assertArrayEquals(packet.getCipherText(), decoded.getCipherText());
+        assertArrayEquals(packet.getCipherKey(), decoded.getCipherKey());
+        assertArrayEquals(packet.getCipherSignature(), decoded.getCipherSignature());
+        assertArrayEquals(packet.getCipherIv(), decoded.getCipherIv());
+        assertEquals(SimpleAES.MODE_CBC, decoded.getCipherMode());
+        assertEquals("MERKLE-SHA256", decoded.getSignatureMode());
+    }
+
+    @Test
+    void optionalFieldsMayBeAbsentOrEmpty() {
+        CipherPacket packet = packet();
+        packet.setCipherText(new byte[0]);
+        packet.setCipherIv(new byte[0]);
+        packet.setSignatureMode(null);
+
+        CipherPacket decoded = CipherFrameCodec.decode(CipherFrameCodec.encode(packet));
+        assertArrayEquals(new byte[0], decoded.getCipherText());
+        assertArrayEquals(new byte[0], decoded.getCipherIv());
+        assertNull(decoded.getSignatureMode());
+    }
+
+    @Test
+    void fieldsMayComeInAnyOrderAndUnknownTagsAreSkipped() {
+        ByteArrayOutputStream frame = header();
+        field(frame, 99, new byte[]{1, 2});
+        field(frame, 3, "sig".getBytes(StandardCharsets.US_ASCII));
+        field(frame, 5, new byte[]{(byte) SimpleAES.MODE_CTR});
+        field(frame, 2, "key".getBytes(StandardCharsets.US_ASCII));
+        field(frame, 1, "text".getBytes(StandardCharsets.US_ASCII));
+
+        CipherPacket decoded = CipherFrameCodec.decode(frame.toByteArray());
+        assertArrayEquals("text".getBytes(StandardCharsets.US_ASCII), decoded.getCipherText());
+        assertArrayEquals("key".getBytes(StandardCharsets.US_ASCII), decoded.getCipherKey());
+        assertArrayEquals("sig".getBytes(StandardCharsets.US_ASCII), decoded.getCipherSignature());
+        assertEquals(SimpleAES.MODE_CTR, decoded.getCipherMode());
+    }
+
+    @Test
+    void rejectsFramesCutInsideAField() {
+        byte[] frame = CipherFrameCodec.encode(packet());
+        // 字段一直排到帧结束，在两个字段之间截断仍是合法的帧，截断在字段中间时必须报格式错误
+        Set<Integer> boundaries = new HashSet<>();
+        for (int offset = 4; offset < frame.length; offset += 5 + ByteBuffer.wrap(frame, offset + 1, 4).getInt()) {
+            boundaries.add(offset);
+        }
+        for (int length = 0; length < frame.length; length++) {
+            if (!boundaries.contains(length)) {
+                byte[] truncated = Arrays.copyOf(frame, length);
+                assertThrows(IllegalArgumentException.class, () -> CipherFrameCodec.decode(truncated), "length " + length);
+            }
+        }
+    }
+
+    @Test
+    void rejectsMissingRequiredFields() {
+        ByteArrayOutputStream frame = header();
+        field(frame, 1, new byte[]{1});
+        field(frame, 2, new byte[]{2});
+        assertThrows(IllegalArgumentException.class, () -> CipherFrameCodec.decode(frame.toByteArray()));
+        assertThrows(IllegalArgumentException.class, () -> CipherFrameCodec.decode(header().toByteArray()));
+    }
+
+    @Test
+    void rejectsBadHeaderAndLengths() {
+        byte[] frame = CipherFrameCodec.encode(packet());
+
+        byte[] badMagic = frame.clone();
+        badMagic[0] = '{';
+        assertThrows(IllegalArgumentException.class, () -> CipherFrameCodec.decode(badMagic));
+
+        byte[] badVersion = frame.clone();
+        badVersion[3] = CipherFrameCodec.VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> CipherFrameCodec.decode(badVersion));
+
+        // 长度为负数，或超出帧的剩余字节
+        byte[] negative = frame.clone();
+        negative[5] = (byte) 0x80;
+        assertThrows(IllegalArgumentException.class, () -> CipherFrameCodec.decode(negative));
+        byte[] oversized = frame.clone();
+        oversized[6] = 0x7f;
+        assertThrows(IllegalArgumentException.class, () -> CipherFrameCodec.decode(oversized));
+    }
+
+    @Test
+    void malformedModeFieldBecomesInvalidMode() {
+        ByteArrayOutputStream frame = header();
+        field(frame, 1, new byte[]{1});
+        field(frame, 2, new byte[]{2});
+        field(frame, 3, new byte[]{3});
+        field(frame, 5, new byte[]{1, 2});
+        assertEquals(-1, CipherFrameCodec.decode(frame.toByteArray()).getCipherMode());
+    }
+
+    private static CipherPacket packet() {
+        return new CipherPacket("cipher-text".getBytes(StandardCharsets.US_ASCII), "cipher-key".getBytes(StandardCharsets.US_ASCII),
+                "signature".getBytes(StandardCharsets.US_ASCII), new byte[16], SimpleAES.MODE_CBC, "MERKLE-SHA256");
+    }
+
+    private static byte[] fill(byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    private static ByteArrayOutputStream header() {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.writeBytes(new byte[]{'E', 'T', 'F', CipherFrameCodec.VERSION});
+        return frame;
+    }
+
+    private static void field(ByteArrayOutputStream frame, int tag, byte[] value) {
+        frame.write(tag);
+        frame.writeBytes(ByteBuffer.allocate(4).putInt(value.length).array());
+        frame.writeBytes(value);
+    }
+}
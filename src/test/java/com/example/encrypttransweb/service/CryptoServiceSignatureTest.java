@@ -0,0 +1,83 @@
+package com.example.encrypttransweb.service;
+
+import com.example.encrypttransweb.bean.CipherPacket;
+import com.example.encrypttransweb.provider.JcaSymmetricCipher;
+import com.example.encrypttransweb.utils.SimpleAES;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * RSA 签名覆盖签名方式、加密算法和工作模式，两种摘要（SHA256、MERKLE-SHA256）下篡改这些字段都必须验签失败
+ */
+@SpringBootTest(properties = "crypto.signature.merkle-threshold=1024")
+class CryptoServiceSignatureTest {
+
+    // 分别低于和达到 merkle-threshold
+    private static final int[] LENGTHS = {100, 4096};
+
+    @Autowired
+    private CryptoService cryptoService;
+
+    @Test
+    void roundTripsWithBothDigests() throws Exception {
+        for (int length : LENGTHS) {
+            byte[] plain = randomBytes(length);
+            CipherPacket packet = cryptoService.encryptPacket(plain);
+            String expected = length < 1024 ? CryptoService.SIGNATURE_SHA256 : CryptoService.SIGNATURE_MERKLE_SHA256;
+            assertEquals(expected, packet.getSignatureMode());
+            assertArrayEquals(plain, cryptoService.decrypt(packet));
+        }
+    }
+
+    @Test
+    void rejectsTamperedCipherMode() throws Exception {
+        assertSignatureRejected(packet -> packet.setCipherMode(SimpleAES.MODE_CBC));
+        assertSignatureRejected(packet -> packet.setCipherMode(SimpleAES.MODE_ECB));
+    }
+
+    @Test
+    void rejectsTamperedCipherAlgorithm() throws Exception {
+        assertSignatureRejected(packet -> packet.setCipherAlgorithm(JcaSymmetricCipher.ALGORITHM));
+        // 没有算法字段按 SIMPLE-AES 处理，但签名时的字段值不同
+        assertSignatureRejected(packet -> packet.setCipherAlgorithm(null));
+    }
+
+    @Test
+    void rejectsSwappedSignatureMode() throws Exception {
+        assertSignatureRejected(packet -> packet.setSignatureMode(
+                CryptoService.SIGNATURE_SHA256.equals(packet.getSignatureMode()) ? CryptoService.SIGNATURE_MERKLE_SHA256 : CryptoService.SIGNATURE_SHA256));
+    }
+
+    @Test
+    void rejectsStrippedSignatureMode() {
+        // 旧格式只能是 ECB 模式的 SIMPLE-AES，去掉签名方式不能绕过对模式的校验
+        for (int length : LENGTHS) {
+            CipherPacket packet = cryptoService.encryptPacket(randomBytes(length));
+            packet.setSignatureMode(null);
+            assertThrows(IllegalArgumentException.class, () -> cryptoService.decrypt(packet));
+        }
+    }
+
+    private void assertSignatureRejected(Consumer<CipherPacket> tamper) {
+        for (int length : LENGTHS) {
+            CipherPacket packet = cryptoService.encryptPacket(randomBytes(length));
+            tamper.accept(packet);
+            Exception e = assertThrows(Exception.class, () -> cryptoService.decrypt(packet));
+            assertEquals("签名校验失败", e.getMessage(), "length " + length);
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.encrypttransweb.service;
+
+import com.example.encrypttransweb.service.CryptoService.StreamProcessor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 流式格式的分块：签名不覆盖数据块长度，重新分块的流必须被拒绝，而不是解出错位的数据；输入按任意位置拆开交入时结果不变
+ */
+@SpringBootTest
+class CryptoServiceStreamTest {
+
+    @Autowired
+    private CryptoService cryptoService;
+
+    @Test
+    void roundTripsAcrossChunkBoundaries() throws Exception {
+        for (int length : new int[]{0, 1, 64 * 1024, 64 * 1024 + 1, 200_000}) {
+            byte[] plain = randomBytes(length);
+            assertArrayEquals(plain, decrypt(encrypt(plain)), "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsReChunkedStream() throws Exception {
+        byte[] stream = encrypt(randomBytes(200_000));
+        // 同一段密文按 32KB 重新分块，签名仍然对应同样的密文字节
+        byte[] reChunked = reChunk(stream, 32 * 1024);
+        assertThrows(IOException.class, () -> decrypt(reChunked));
+    }
+
+    @Test
+    void rejectsShortChunkBeforeEnd() throws Exception {
+        byte[] stream = encrypt(randomBytes(64 * 1024 + 100));
+        // 按分组长度重新分块，即使计数器按字节数计算能对齐，也不接受不满 64KB 的中间块
+        byte[] reChunked = reChunk(stream, 16);
+        assertThrows(IOException.class, () -> decrypt(reChunked));
+    }
+
+    @Test
+    void decryptsInputSplitAtAnyOffset() throws Exception {
+        byte[] plain = randomBytes(200_000);
+        byte[] stream = encrypt(plain);
+        // reactive 接口的 DataBuffer 大小不固定，头部、长度字段和签名都可能被拆开
+        for (int split : new int[]{1, 3, 17, 4093, 64 * 1024 + 5}) {
+            StreamProcessor decryptor = cryptoService.newStreamDecryptor();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int offset = 0; offset < stream.length; offset += split) {
+                out.write(decryptor.update(stream, offset, Math.min(split, stream.length - offset)));
+            }
+            out.write(decryptor.finish());
+            assertArrayEquals(plain, out.toByteArray(), "split " + split);
+        }
+    }
+
+    @Test
+    void encryptsInputSplitAtAnyOffset() throws Exception {
+        byte[] plain = randomBytes(200_000);
+        StreamProcessor encryptor = cryptoService.newStreamEncryptor();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < plain.length; offset += 1000) {
+            out.write(encryptor.update(plain, offset, Math.min(1000, plain.length - offset)));
+        }
+        out.write(encryptor.finish());
+        // 输入怎么拆分都按 64KB 分块，解密端的分块检查能通过
+        assertArrayEquals(plain, decrypt(out.toByteArray()));
+    }
+
+    @Test
+    void rejectsTruncatedStream() throws Exception {
+        byte[] stream = encrypt(randomBytes(1000));
+        for (int length : new int[]{0, 3, 20, stream.length - 1}) {
+            byte[] truncated = Arrays.copyOf(stream, length);
+            assertThrows(IOException.class, () -> decrypt(truncated), "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsTrailingData() throws Exception {
+        byte[] stream = encrypt(randomBytes(1000));
+        assertThrows(IOException.class, () -> decrypt(Arrays.copyOf(stream, stream.length + 1)));
+    }
+
+    private byte[] encrypt(byte[] plain) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cryptoService.encryptStream(new ByteArrayInputStream(plain), out);
+        return out.toByteArray();
+    }
+
+    private byte[] decrypt(byte[] stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cryptoService.decryptStream(new ByteArrayInputStream(stream), out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 保留头部和签名，把全部数据块密文按 chunkSize 重新分块
+     */
+    private static byte[] reChunk(byte[] stream, int chunkSize) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(stream));
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(result);
+
+        // 魔数、工作模式、密钥 ID、IV、密钥密文
+        out.writeInt(in.readInt());
+        out.writeByte(in.readUnsignedByte());
+        byte[] keyId = new byte[in.readUnsignedByte()];
+        in.readFully(keyId);
+        out.writeByte(keyId.length);
+        out.write(keyId);
+        copyShortBytes(in, out);
+        copyShortBytes(in, out);
+
+        ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+        int length;
+        while ((length = in.readInt()) != 0) {
+            cipherText.write(in.readNBytes(length));
+        }
+        byte[] bytes = cipherText.toByteArray();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            int n = Math.min(chunkSize, bytes.length - offset);
+            out.writeInt(n);
+            out.write(bytes, offset, n);
+        }
+        out.writeInt(0);
+        copyShortBytes(in, out);
+        return result.toByteArray();
+    }
+
+    private static void copyShortBytes(DataInputStream in, DataOutputStream out) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
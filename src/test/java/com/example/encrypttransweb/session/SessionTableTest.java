@@ -0,0 +1,144 @@
+package com.example.encrypttransweb.session;
+
+import com.example.encrypttransweb.utils.SimpleHMAC;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SessionTable 的过期和淘汰：过期会话查不到，满了之后先清理过期会话，再移除最早过期的会话
+ */
+class SessionTableTest {
+
+    private static final SimpleHMAC MAC = new SimpleHMAC(new byte[32]);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void createdSessionsExpireAfterTtl() {
+        SessionTable table = new SessionTable(registry, Duration.ofMinutes(5), 10);
+        Instant before = Instant.now();
+        CryptoSession first = table.create(new byte[16], new byte[32]);
+        CryptoSession second = table.create(new byte[16], new byte[32]);
+
+        assertSame(first, table.get(first.id()));
+        assertNotEquals(first.id(), second.id());
+        // 16 字节随机 ID 的十六进制
+        assertEquals(32, first.id().length());
+        assertFalse(first.expiresAt().isBefore(before.plus(Duration.ofMinutes(5))));
+        assertNull(table.get("missing"));
+    }
+
+    @Test
+    void expiredSessionIsRemovedOnLookup() throws Exception {
+        SessionTable table = new SessionTable(registry, Duration.ofMinutes(5), 10);
+        table.put(session("short", Instant.now().plusMillis(50)));
+        assertNotNull(table.get("short"));
+
+        Thread.sleep(100);
+        assertNull(table.get("short"));
+        assertEquals(0, sessionGauge());
+    }
+
+    @Test
+    void rejectsSessionThatAlreadyExpired() {
+        SessionTable table = new SessionTable(registry, Duration.ofMinutes(5), 10);
+        assertThrows(IllegalArgumentException.class, () -> table.put(session("old", Instant.now().minusSeconds(1))));
+        assertEquals(0, sessionGauge());
+    }
+
+    @Test
+    void fullTableDropsExpiredSessionsFirst() throws Exception {
+        SessionTable table = new SessionTable(registry, Duration.ofMinutes(5), 2);
+        Instant now = Instant.now();
+        table.put(session("short", now.plusMillis(50)));
+        table.put(session("long", now.plusSeconds(100)));
+        Thread.sleep(100);
+
+        table.put(session("new", now.plusSeconds(200)));
+        assertNotNull(table.get("long"));
+        assertNotNull(table.get("new"));
+        assertEquals(2, sessionGauge());
+    }
+
+    @Test
+    void fullTableEvictsEarliestExpiring() {
+        SessionTable table = new SessionTable(registry, Duration.ofMinutes(5), 3);
+        Instant now = Instant.now();
+        // 按加入顺序和过期顺序不同，确认淘汰的是最早过期而不是最早加入的
+        table.put(session("b", now.plusSeconds(200)));
+        table.put(session("a", now.plusSeconds(100)));
+        table.put(session("c", now.plusSeconds(300)));
+
+        table.put(session("d", now.plusSeconds(400)));
+        assertEquals(3, sessionGauge());
+        assertNull(table.get("a"));
+        assertNotNull(table.get("b"));
+        assertNotNull(table.get("c"));
+        assertNotNull(table.get("d"));
+    }
+
+    @Test
+    void replacingSessionDoesNotEvictOthers() {
+        SessionTable table = new SessionTable(registry, Duration.ofMinutes(5), 2);
+        Instant now = Instant.now();
+        table.put(session("a", now.plusSeconds(100)));
+        table.put(session("b", now.plusSeconds(200)));
+
+        CryptoSession replaced = table.put(session("a", now.plusSeconds(300)));
+        assertEquals(2, sessionGauge());
+        assertSame(replaced, table.get("a"));
+        assertNotNull(table.get("b"));
+    }
+
+    @Test
+    void replacedSessionLeftInQueueDoesNotRemoveItsReplacement() {
+        SessionTable table = new SessionTable(registry, Duration.ofMinutes(5), 2);
+        Instant now = Instant.now();
+        table.put(session("a", now.plusSeconds(100)));
+        table.put(session("b", now.plusSeconds(200)));
+        CryptoSession replaced = table.put(session("a", now.plusSeconds(300)));
+
+        // 队列头部是替换前的 a，丢弃它之后才轮到 b
+        table.put(session("c", now.plusSeconds(400)));
+        assertEquals(2, table.size());
+        assertNull(table.get("b"));
+        assertSame(replaced, table.get("a"));
+    }
+
+    @Test
+    void sizeStaysAtLimitUnderChurn() {
+        SessionTable table = new SessionTable(registry, Duration.ofMinutes(5), 50);
+        for (int i = 0; i < 500; i++) {
+            table.create(new byte[16], new byte[32]);
+        }
+        assertEquals(50, table.size());
+        assertEquals(50, sessionGauge());
+    }
+
+    @Test
+    void rejectsLimitsThatCannotHoldASession() {
+        // max-sessions 为 0 时淘汰循环永远无法腾出空间
+        assertThrows(IllegalArgumentException.class, () -> new SessionTable(registry, Duration.ofMinutes(5), 0));
+        assertThrows(IllegalArgumentException.class, () -> new SessionTable(registry, Duration.ofMinutes(5), -1));
+        assertThrows(IllegalArgumentException.class, () -> new SessionTable(registry, Duration.ZERO, 10));
+    }
+
+    private double sessionGauge() {
+        return registry.get("crypto.sessions").gauge().value();
+    }
+
+    private static CryptoSession session(String id, Instant expiresAt) {
+        return new CryptoSession(id, new byte[16], MAC, expiresAt);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.encrypttransweb.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * FastAES 与 SimpleAES 原有的按轮计算的实现逐字节相同
+ * 原实现的行列排列与标准 AES 不同，已有密文都按它的结果产生，所以以它为准，而不是 JDK 的 AES
+ */
+class FastAESTest {
+
+    @Test
+    void blocksMatchRoundBasedImplementation() {
+        Random random = new Random(5);
+        byte[] block = new byte[16];
+        byte[] out = new byte[16];
+        for (int i = 0; i < 2000; i++) {
+            AESKey key = new AESKey(randomBytes(random, 16));
+            random.nextBytes(block);
+
+            // 补位后的第一个分组就是 block 本身的加密结果
+            byte[] expected = Arrays.copyOf(SimpleAES.encrypt(block, key), 16);
+            FastAES.encryptBlock(block, 0, out, 0, key);
+            assertArrayEquals(expected, out);
+
+            FastAES.decryptBlock(out, 0, out, 0, key);
+            assertArrayEquals(block, out);
+        }
+    }
+
+    @Test
+    void extremeBytesHitEveryTableEdge() {
+        // 全 0、全 0xff 的密钥和分组分别查到表的第一项和最后一项
+        for (byte fill : new byte[]{0, (byte) 0xff}) {
+            byte[] keyBytes = new byte[16];
+            byte[] block = new byte[16];
+            Arrays.fill(keyBytes, fill);
+            Arrays.fill(block, fill);
+            AESKey key = new AESKey(keyBytes);
+
+            byte[] out = new byte[16];
+            FastAES.encryptBlock(block, 0, out, 0, key);
+            assertArrayEquals(Arrays.copyOf(SimpleAES.encrypt(block, key), 16), out);
+        }
+    }
+
+    @Test
+    void blockFunctionsHonourOffsetsAndWorkInPlace() {
+        Random random = new Random(6);
+        AESKey key = new AESKey(randomBytes(random, 16));
+        byte[] block = randomBytes(random, 16);
+        byte[] expected = Arrays.copyOf(SimpleAES.encrypt(block, key), 16);
+
+        byte[] buffer = new byte[40];
+        System.arraycopy(block, 0, buffer, 3, 16);
+        FastAES.encryptBlock(buffer, 3, buffer, 21, key);
+        assertArrayEquals(expected, Arrays.copyOfRange(buffer, 21, 37));
+        // 输出位置之外的字节不受影响
+        assertArrayEquals(block, Arrays.copyOfRange(buffer, 3, 19));
+
+        FastAES.encryptBlock(buffer, 3, buffer, 3, key);
+        assertArrayEquals(expected, Arrays.copyOfRange(buffer, 3, 19));
+        FastAES.decryptBlock(buffer, 3, buffer, 3, key);
+        assertArrayEquals(block, Arrays.copyOfRange(buffer, 3, 19));
+    }
+
+    @Test
+    void messagesInterchangeWithSimpleAES() {
+        Random random = new Random(7);
+        AESKey key = new AESKey(randomBytes(random, 16));
+        // 空消息和整数个分组的消息也会补一个完整的填充分组
+        for (int length : new int[]{0, 1, 15, 16, 17, 4096}) {
+            byte[] input = randomBytes(random, length);
+
+            byte[] fast = FastAES.encrypt(input, key);
+            assertArrayEquals(SimpleAES.encrypt(input, key), fast, "length " + length);
+            assertArrayEquals(input, SimpleAES.decrypt(fast, key), "length " + length);
+            assertArrayEquals(input, FastAES.decrypt(SimpleAES.encrypt(input, key), key), "length " + length);
+        }
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
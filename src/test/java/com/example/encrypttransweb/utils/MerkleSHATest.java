@@ -0,0 +1,114 @@
+package com.example.encrypttransweb.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * MerkleSHA 的树结构：叶子、节点的前缀和左右子树的划分都按 RFC 6962，并行计算的根哈希与逐层计算的一致
+ */
+class MerkleSHATest {
+
+    private static final int CHUNK = MerkleSHA.CHUNK_SIZE;
+
+    @Test
+    void singleLeafIsPrefixedSha256() {
+        byte[] data = "hello".getBytes();
+        assertArrayEquals(sha256(new byte[]{0x00}, data), MerkleSHA.treeHash(data));
+        // 没有任何叶子时是空输入的 SHA-256
+        assertArrayEquals(sha256(), MerkleSHA.treeHash(new byte[0]));
+    }
+
+    @Test
+    void leafAndNodeHashesCannotCollide() {
+        byte[] left = new byte[CHUNK];
+        byte[] right = new byte[]{1, 2, 3};
+        byte[] data = concat(left, right);
+        byte[] root = MerkleSHA.treeHash(data);
+        assertArrayEquals(sha256(new byte[]{0x01}, sha256(new byte[]{0x00}, left), sha256(new byte[]{0x00}, right)), root);
+
+        // 把两个子树哈希拼成一个叶子，前缀不同，得到的不是同一个根
+        byte[] forged = concat(sha256(new byte[]{0x00}, left), sha256(new byte[]{0x00}, right));
+        assertFalse(Arrays.equals(root, MerkleSHA.treeHash(forged)));
+    }
+
+    @Test
+    void trailersAreSeparateOrderedLeaves() {
+        byte[] data = new byte[100];
+        byte[] key = {1, 2, 3};
+        byte[] iv = {4, 5, 6};
+        assertArrayEquals(reference(data, key, iv), MerkleSHA.treeHash(data, key, iv));
+        // 交换顺序或把追加数据并入主体都会改变根哈希
+        assertFalse(Arrays.equals(MerkleSHA.treeHash(data, key, iv), MerkleSHA.treeHash(data, iv, key)));
+        assertFalse(Arrays.equals(MerkleSHA.treeHash(data, key, iv), MerkleSHA.treeHash(concat(data, key), iv)));
+        // 空的追加数据也占一个叶子
+        assertFalse(Arrays.equals(MerkleSHA.treeHash(data), MerkleSHA.treeHash(data, new byte[0])));
+    }
+
+    @Test
+    void unbalancedTreesMatchReference() {
+        Random random = new Random(11);
+        // 叶子数覆盖 2 的幂前后，以及超过 4 个叶子后走 ForkJoin 的情况
+        for (int length : new int[]{CHUNK - 1, CHUNK, CHUNK + 1, 3 * CHUNK, 4 * CHUNK, 5 * CHUNK + 7, 17 * CHUNK + 3}) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            byte[] trailer = {9};
+            assertArrayEquals(reference(data, trailer), MerkleSHA.treeHash(data, trailer), "length " + length);
+        }
+    }
+
+    @Test
+    void parallelRootIsStable() {
+        byte[] data = new byte[9 * CHUNK + 1];
+        new Random(12).nextBytes(data);
+        byte[] first = MerkleSHA.treeHash(data);
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(first, MerkleSHA.treeHash(data));
+        }
+    }
+
+    /**
+     * 参考实现：用 JDK 的 SHA-256 按 RFC 6962 的定义递归计算
+     */
+    private static byte[] reference(byte[] data, byte[]... trailers) {
+        List<byte[]> leaves = new ArrayList<>();
+        for (int offset = 0; offset < data.length; offset += CHUNK) {
+            leaves.add(Arrays.copyOfRange(data, offset, Math.min(data.length, offset + CHUNK)));
+        }
+        leaves.addAll(Arrays.asList(trailers));
+        return subtree(leaves);
+    }
+
+    private static byte[] subtree(List<byte[]> leaves) {
+        if (leaves.size() == 1) {
+            return sha256(new byte[]{0x00}, leaves.get(0));
+        }
+        int k = Integer.highestOneBit(leaves.size() - 1);
+        return sha256(new byte[]{0x01}, subtree(leaves.subList(0, k)), subtree(leaves.subList(k, leaves.size())));
+    }
+
+    private static byte[] sha256(byte[]... parts) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            for (byte[] part : parts) {
+                sha.update(part);
+            }
+            return sha.digest();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
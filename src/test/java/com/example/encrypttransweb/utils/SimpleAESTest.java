@@ -0,0 +1,203 @@
+package com.example.encrypttransweb.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SimpleAES 的 CBC、CTR 工作模式，与按模式定义逐块计算的参考实现对比
+ */
+class SimpleAESTest {
+
+    // 超过 64KB 的并行阈值，拆分点落在不同的分组上
+    private static final int LARGE = 300 * 1024 + 7;
+
+    @Test
+    void cbcPadsEveryLengthAndChainsBlocks() {
+        Random random = new Random(1);
+        AESKey key = new AESKey(randomBytes(random, 16));
+        byte[] iv = randomBytes(random, 16);
+        for (int length : new int[]{0, 1, 15, 16, 17, 31, 32, 33}) {
+            byte[] input = randomBytes(random, length);
+            byte[] cipherText = SimpleAES.encrypt(input, key, SimpleAES.MODE_CBC, iv);
+
+            // 整数个分组时也补一个完整的填充分组
+            assertEquals((length / 16 + 1) * 16, cipherText.length, "length " + length);
+            assertArrayEquals(referenceCbc(input, key, iv), cipherText, "length " + length);
+            assertArrayEquals(input, SimpleAES.decrypt(cipherText, key, SimpleAES.MODE_CBC, iv), "length " + length);
+        }
+    }
+
+    @Test
+    void cbcHidesRepeatedBlocks() {
+        AESKey key = new AESKey(new byte[16]);
+        byte[] input = new byte[64];
+        byte[] cipherText = SimpleAES.encrypt(input, key, SimpleAES.MODE_CBC, new byte[16]);
+        // 相同的明文分组在 ECB 下密文相同，在 CBC 下不同
+        assertNotEquals(Arrays.toString(Arrays.copyOfRange(cipherText, 0, 16)), Arrays.toString(Arrays.copyOfRange(cipherText, 16, 32)));
+    }
+
+    @Test
+    void cbcParallelDecryptMatchesSerialEncrypt() {
+        Random random = new Random(2);
+        AESKey key = new AESKey(randomBytes(random, 16));
+        byte[] iv = randomBytes(random, 16);
+        byte[] input = randomBytes(random, LARGE);
+
+        byte[] cipherText = SimpleAES.encrypt(input, key, SimpleAES.MODE_CBC, iv);
+        assertArrayEquals(referenceCbc(input, key, iv), cipherText);
+        assertArrayEquals(input, SimpleAES.decrypt(cipherText, key, SimpleAES.MODE_CBC, iv));
+    }
+
+    @Test
+    void ctrKeepsLengthIncludingPartialFinalBlock() {
+        Random random = new Random(3);
+        AESKey key = new AESKey(randomBytes(random, 16));
+        byte[] iv = randomBytes(random, 16);
+        for (int length : new int[]{0, 1, 15, 16, 17, 33, LARGE}) {
+            byte[] input = randomBytes(random, length);
+            byte[] cipherText = SimpleAES.encrypt(input, key, SimpleAES.MODE_CTR, iv);
+
+            assertEquals(length, cipherText.length);
+            assertArrayEquals(referenceCtr(input, key, iv), cipherText, "length " + length);
+            assertArrayEquals(input, SimpleAES.decrypt(cipherText, key, SimpleAES.MODE_CTR, iv), "length " + length);
+        }
+    }
+
+    @Test
+    void ctrCounterCarriesAndWraps() {
+        AESKey key = new AESKey(randomBytes(new Random(4), 16));
+        byte[] input = new byte[64];
+
+        // 低 8 字节全为 0xff，第二个分组的计数器向高位进位
+        byte[] iv = new byte[16];
+        Arrays.fill(iv, 8, 16, (byte) 0xff);
+        assertArrayEquals(referenceCtr(input, key, iv), SimpleAES.encrypt(input, key, SimpleAES.MODE_CTR, iv));
+
+        // 128 位全为 0xff，计数器回到 0
+        Arrays.fill(iv, (byte) 0xff);
+        assertArrayEquals(referenceCtr(input, key, iv), SimpleAES.encrypt(input, key, SimpleAES.MODE_CTR, iv));
+    }
+
+    @Test
+    void ctrResumesFromAnyBlockIndex() {
+        Random random = new Random(5);
+        AESKey key = new AESKey(randomBytes(random, 16));
+        byte[] iv = randomBytes(random, 16);
+        byte[] input = randomBytes(random, 100);
+        byte[] whole = SimpleAES.encrypt(input, key, SimpleAES.MODE_CTR, iv);
+
+        // 流式处理按分组边界分段调用，最后一段不足一个分组
+        byte[] segmented = new byte[input.length];
+        SimpleAES.ctr(key, iv, 0, input, 0, 48, segmented, 0);
+        SimpleAES.ctr(key, iv, 3, input, 48, 52, segmented, 48);
+        assertArrayEquals(whole, segmented);
+
+        // 起始序号超过 1 字节时按多字节进位
+        long blockIndex = 0x1_0000_0101L;
+        byte[] out = new byte[32];
+        SimpleAES.ctr(key, iv, blockIndex, input, 0, 32, out, 0);
+        byte[] shifted = new BigInteger(1, iv).add(BigInteger.valueOf(blockIndex)).mod(BigInteger.ONE.shiftLeft(128)).toByteArray();
+        assertArrayEquals(referenceCtr(Arrays.copyOf(input, 32), key, toBlock(shifted)), out);
+    }
+
+    @Test
+    void rejectsBadParameters() {
+        AESKey key = new AESKey(new byte[16]);
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.encrypt(new byte[16], key, SimpleAES.MODE_CBC, new byte[8]));
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.encrypt(new byte[16], key, SimpleAES.MODE_CTR, null));
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.decrypt(new byte[15], key, SimpleAES.MODE_CBC, new byte[16]));
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.encrypt(new byte[16], key, 7, new byte[16]));
+    }
+
+    @Test
+    void unpadRejectsInvalidPadding() {
+        for (int length = 0; length <= 33; length++) {
+            byte[] input = new byte[length];
+            assertArrayEquals(input, SimpleAES.unpad(SimpleAES.pad(input)));
+        }
+        // 补位长度为 0、超过分组长度、超过数据长度
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.unpad(new byte[16]));
+        byte[] tooLong = new byte[32];
+        Arrays.fill(tooLong, (byte) 17);
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.unpad(tooLong));
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.unpad(new byte[]{5, 5, 5, 5}));
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.unpad(new byte[0]));
+        // 最后一个字节大于 0x7f 时不能按负数截取
+        byte[] negative = new byte[16];
+        negative[15] = (byte) 0xf0;
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.unpad(negative));
+        // 补位字节不一致
+        byte[] mixed = SimpleAES.pad(new byte[10]);
+        mixed[10] = 1;
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.unpad(mixed));
+    }
+
+    @Test
+    void modeNamesRoundTrip() {
+        for (int mode : new int[]{SimpleAES.MODE_ECB, SimpleAES.MODE_CBC, SimpleAES.MODE_CTR}) {
+            assertEquals(mode, SimpleAES.modeOf(SimpleAES.modeName(mode)));
+            assertEquals(mode, SimpleAES.modeOf(SimpleAES.modeName(mode).toLowerCase()));
+        }
+        // 旧数据包没有工作模式
+        assertEquals(SimpleAES.MODE_ECB, SimpleAES.modeOf(null));
+        assertEquals(SimpleAES.MODE_ECB, SimpleAES.modeOf(""));
+        assertThrows(IllegalArgumentException.class, () -> SimpleAES.modeOf("GCM"));
+    }
+
+    /**
+     * CBC 参考实现：补位后每个明文分组先与上一个密文分组（第一个为 IV）异或再加密
+     */
+    private static byte[] referenceCbc(byte[] input, AESKey key, byte[] iv) {
+        byte[] padded = SimpleAES.pad(input);
+        byte[] output = new byte[padded.length];
+        byte[] previous = iv.clone();
+        byte[] block = new byte[16];
+        for (int offset = 0; offset < padded.length; offset += 16) {
+            for (int i = 0; i < 16; i++) {
+                block[i] = (byte) (padded[offset + i] ^ previous[i]);
+            }
+            FastAES.encryptBlock(block, 0, output, offset, key);
+            previous = Arrays.copyOfRange(output, offset, offset + 16);
+        }
+        return output;
+    }
+
+    /**
+     * CTR 参考实现：IV 作为 128 位大端整数，每个分组加 1，加密后的计数器与明文异或
+     */
+    private static byte[] referenceCtr(byte[] input, AESKey key, byte[] iv) {
+        byte[] output = new byte[input.length];
+        BigInteger counter = new BigInteger(1, iv);
+        BigInteger modulus = BigInteger.ONE.shiftLeft(128);
+        byte[] keyStream = new byte[16];
+        for (int offset = 0; offset < input.length; offset += 16) {
+            FastAES.encryptBlock(toBlock(counter.toByteArray()), 0, keyStream, 0, key);
+            for (int i = 0; i < 16 && offset + i < input.length; i++) {
+                output[offset + i] = (byte) (input[offset + i] ^ keyStream[i]);
+            }
+            counter = counter.add(BigInteger.ONE).mod(modulus);
+        }
+        return output;
+    }
+
+    private static byte[] toBlock(byte[] bytes) {
+        byte[] block = new byte[16];
+        int length = Math.min(bytes.length, 16);
+        System.arraycopy(bytes, bytes.length - length, block, 16 - length, length);
+        return block;
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.encrypttransweb.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SimpleBase64 的编码结果与 java.util.Base64 相同，解码严格校验长度、字符和 '=' 的位置
+ */
+class SimpleBase64Test {
+
+    @Test
+    void everyRemainderMatchesJdk() {
+        Random random = new Random(13);
+        for (int length = 0; length < 64; length++) {
+            byte[] input = new byte[length];
+            random.nextBytes(input);
+
+            String standard = Base64.getEncoder().encodeToString(input);
+            assertEquals(standard, SimpleBase64.byteToBase64(input), "length " + length);
+            assertArrayEquals(input, SimpleBase64.base64ToByte(standard), "length " + length);
+            assertEquals(standard.length(), SimpleBase64.encodedLength(length));
+
+            String url = Base64.getUrlEncoder().encodeToString(input);
+            assertEquals(url, SimpleBase64.byteToBase64Url(input), "length " + length);
+            assertArrayEquals(input, SimpleBase64.base64UrlToByte(url), "length " + length);
+        }
+    }
+
+    @Test
+    void everyByteValueUsesTheRightAlphabet() {
+        byte[] input = new byte[256 * 3];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) (i * 7);
+        }
+        String standard = SimpleBase64.byteToBase64(input);
+        String url = SimpleBase64.byteToBase64Url(input);
+        assertTrue(standard.contains("+") && standard.contains("/"));
+        assertEquals(standard.replace('+', '-').replace('/', '_'), url);
+        assertArrayEquals(Base64.getDecoder().decode(standard), SimpleBase64.base64ToByte(standard));
+    }
+
+    @Test
+    void byteBuffersConsumeRemainingBytes() {
+        byte[] input = new byte[1001];
+        new Random(14).nextBytes(input);
+        byte[] encoded = Base64.getEncoder().encode(input);
+
+        // 数组偏移非 0 的切片
+        byte[] framed = new byte[encoded.length + 10];
+        System.arraycopy(encoded, 0, framed, 5, encoded.length);
+        ByteBuffer slice = ByteBuffer.wrap(framed, 5, encoded.length).slice();
+        assertEquals(ByteBuffer.wrap(input), SimpleBase64.decode(slice));
+        assertEquals(slice.limit(), slice.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(input.length).put(input).flip();
+        assertEquals(ByteBuffer.wrap(encoded), SimpleBase64.encode(direct));
+        assertEquals(0, direct.remaining());
+
+        ByteBuffer directEncoded = ByteBuffer.allocateDirect(encoded.length).put(encoded).flip();
+        assertEquals(ByteBuffer.wrap(input), SimpleBase64.decode(directEncoded));
+    }
+
+    @Test
+    void rejectsLengthNotMultipleOfFour() {
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("QUJDR"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("QQ="));
+        // JDK 接受省略 '=' 的写法，这里不接受
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("QQ"));
+    }
+
+    @Test
+    void rejectsCharactersOutsideTheAlphabet() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("QUJDQU*D"));
+        assertTrue(e.getMessage().contains("6"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("QUJD\nQUJD"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("QUJé"));
+        // 两种字母表不能混用
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("-_-_"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64UrlToByte("+/+/"));
+    }
+
+    @Test
+    void rejectsMisplacedPadding() {
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("QQ==QUJD"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("QU=D"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("Q==="));
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.base64ToByte("===="));
+    }
+
+    @Test
+    void failedDecodeKeepsBufferPosition() {
+        ByteBuffer src = ByteBuffer.wrap("QUJDQU*D".getBytes(StandardCharsets.US_ASCII));
+        src.position(4);
+        assertThrows(IllegalArgumentException.class, () -> SimpleBase64.decode(src));
+        assertEquals(4, src.position());
+    }
+}
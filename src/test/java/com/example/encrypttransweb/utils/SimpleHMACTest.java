@@ -0,0 +1,109 @@
+package com.example.encrypttransweb.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SimpleHMAC 与 JDK 的 HmacSHA256 结果相同，预先压缩的状态可以重复使用，被篡改的数据校验失败
+ */
+class SimpleHMACTest {
+
+    @Test
+    void matchesRfc4231Vectors() {
+        // 测试用例 1：20 字节密钥
+        byte[] key1 = new byte[20];
+        Arrays.fill(key1, (byte) 0x0b);
+        assertEquals("b0344c61d8db38535ca8afceaf0bf12b881dc200c9833da726e9376c2e32cff7",
+                hex(SimpleHMAC.hmacSha256(key1, "Hi There".getBytes(StandardCharsets.US_ASCII))));
+        // 测试用例 2：短密钥
+        assertEquals("5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843",
+                hex(SimpleHMAC.hmacSha256("Jefe".getBytes(StandardCharsets.US_ASCII),
+                        "what do ya want for nothing?".getBytes(StandardCharsets.US_ASCII))));
+        // 测试用例 6：131 字节密钥，先对密钥做 SHA-256
+        byte[] key6 = new byte[131];
+        Arrays.fill(key6, (byte) 0xaa);
+        assertEquals("60e431591ee0b67f0d8a26aacbf5b77f8e0bc6213728c5140546040f0ee37f54",
+                hex(SimpleHMAC.hmacSha256(key6, "Test Using Larger Than Block-Size Key - Hash Key First".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    void keysAroundBlockSizeMatchJdk() throws Exception {
+        Random random = new Random(15);
+        byte[] data = new byte[1000];
+        random.nextBytes(data);
+        // 64 字节的密钥直接使用，65 字节起先做 SHA-256
+        for (int keyLength : new int[]{1, 32, 63, 64, 65, 200}) {
+            byte[] key = new byte[keyLength];
+            random.nextBytes(key);
+            assertArrayEquals(jdk(key, data), new SimpleHMAC(key).mac(data), "key length " + keyLength);
+        }
+    }
+
+    @Test
+    void partsAreHashedAsOneMessage() throws Exception {
+        Random random = new Random(16);
+        byte[] key = new byte[32];
+        byte[] data = new byte[300];
+        random.nextBytes(key);
+        random.nextBytes(data);
+
+        SimpleHMAC hmac = new SimpleHMAC(key);
+        byte[] split = hmac.mac(Arrays.copyOfRange(data, 0, 7), new byte[0], Arrays.copyOfRange(data, 7, 200), Arrays.copyOfRange(data, 200, 300));
+        assertArrayEquals(jdk(key, data), split);
+        assertArrayEquals(jdk(key, new byte[0]), hmac.mac());
+    }
+
+    @Test
+    void precomputedStateIsNotModifiedBySharedUse() throws Exception {
+        byte[] key = "shared-key".getBytes(StandardCharsets.US_ASCII);
+        SimpleHMAC hmac = new SimpleHMAC(key);
+        // 多线程同时使用同一个实例，每次都从保存的状态复制开始
+        IntStream.range(0, 2000).parallel().forEach(i -> {
+            byte[] data = ("message-" + i).getBytes(StandardCharsets.US_ASCII);
+            assertArrayEquals(SimpleHMAC.hmacSha256(key, data), hmac.mac(data));
+        });
+        assertArrayEquals(jdk(key, "x".getBytes(StandardCharsets.US_ASCII)), hmac.mac("x".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void verifyFailsAfterTampering() {
+        SimpleHMAC hmac = new SimpleHMAC("secret-key-secret-key-secret-key".getBytes(StandardCharsets.US_ASCII));
+        byte[] header = "header".getBytes(StandardCharsets.US_ASCII);
+        byte[] body = "body".getBytes(StandardCharsets.US_ASCII);
+        byte[] mac = hmac.mac(header, body);
+        assertTrue(hmac.verify(mac, header, body));
+
+        byte[] tamperedBody = body.clone();
+        tamperedBody[0] ^= 1;
+        assertFalse(hmac.verify(mac, header, tamperedBody));
+
+        byte[] tamperedMac = mac.clone();
+        tamperedMac[31] ^= 1;
+        assertFalse(hmac.verify(tamperedMac, header, body));
+        assertFalse(hmac.verify(Arrays.copyOf(mac, 16), header, body));
+        assertFalse(hmac.verify(null, header, body));
+        assertFalse(new SimpleHMAC("another-key".getBytes(StandardCharsets.US_ASCII)).verify(mac, header, body));
+    }
+
+    private static byte[] jdk(byte[] key, byte[] data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data);
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
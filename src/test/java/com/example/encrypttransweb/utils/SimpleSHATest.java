@@ -0,0 +1,120 @@
+package com.example.encrypttransweb.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SimpleSHA 的增量计算：任意切分方式的 update 结果都与 JDK 的 MessageDigest SHA-256 相同
+ */
+class SimpleSHATest {
+
+    @Test
+    void matchesFips180Vectors() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                hex(SimpleSHA.sha256("abc".getBytes(StandardCharsets.US_ASCII))));
+        // 56 字节的消息放不下 8 字节长度，需要多填充一个块
+        assertEquals("248d6a61d20638b8e5c026930c3e6039a33ce45964ff2167f6ecedd419db06c1",
+                hex(SimpleSHA.sha256("abcdbcdecdefdefgefghfghighijhijkijkljklmklmnlmnomnopnopq".getBytes(StandardCharsets.US_ASCII))));
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", hex(SimpleSHA.sha256(new byte[0])));
+    }
+
+    @Test
+    void paddingBoundariesMatchJdk() throws Exception {
+        Random random = new Random(8);
+        for (int length = 50; length <= 130; length++) {
+            byte[] input = new byte[length];
+            random.nextBytes(input);
+            assertArrayEquals(jdk(input), SimpleSHA.sha256(input), "length " + length);
+        }
+    }
+
+    @Test
+    void anySplitMatchesJdk() throws Exception {
+        byte[] input = new byte[10_000];
+        new Random(9).nextBytes(input);
+        byte[] expected = jdk(input);
+
+        // 步长覆盖只填缓冲区、恰好填满缓冲区、跨越缓冲区后直接压缩整块几种路径
+        for (int step : new int[]{1, 7, 63, 64, 65, 129, 4096}) {
+            SimpleSHA sha = new SimpleSHA();
+            for (int offset = 0; offset < input.length; offset += step) {
+                sha.update(input, offset, Math.min(step, input.length - offset));
+            }
+            assertArrayEquals(expected, sha.digest(), "step " + step);
+        }
+    }
+
+    @Test
+    void byteBufferReadsOnlyRemainingBytes() throws Exception {
+        byte[] input = new byte[10_000];
+        new Random(10).nextBytes(input);
+
+        // 数组偏移非 0 的堆缓冲区
+        ByteBuffer slice = ByteBuffer.wrap(input, 100, 5000).slice();
+        SimpleSHA sha = new SimpleSHA();
+        sha.update(slice);
+        assertEquals(slice.limit(), slice.position());
+        assertArrayEquals(jdk(Arrays.copyOfRange(input, 100, 5100)), sha.digest());
+
+        // 直接缓冲区和只读缓冲区没有可访问的数组，分段复制
+        ByteBuffer direct = ByteBuffer.allocateDirect(input.length).put(input).flip();
+        sha.update(direct);
+        assertEquals(0, direct.remaining());
+        assertArrayEquals(jdk(input), sha.digest());
+
+        sha.update(ByteBuffer.wrap(input).asReadOnlyBuffer());
+        assertArrayEquals(jdk(input), sha.digest());
+    }
+
+    @Test
+    void digestAndResetStartOver() throws Exception {
+        SimpleSHA sha = new SimpleSHA();
+        sha.update("first".getBytes(StandardCharsets.US_ASCII));
+        sha.digest();
+        sha.update("abc".getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals(jdk("abc".getBytes(StandardCharsets.US_ASCII)), sha.digest());
+
+        sha.update(new byte[100]);
+        sha.reset();
+        sha.update("abc".getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals(jdk("abc".getBytes(StandardCharsets.US_ASCII)), sha.digest());
+    }
+
+    @Test
+    void copyContinuesFromSameStateIndependently() throws Exception {
+        SimpleSHA sha = new SimpleSHA();
+        // 缓冲区中留有不足一个块的数据，复制时一并复制
+        sha.update(new byte[100]);
+        SimpleSHA copy = new SimpleSHA(sha);
+
+        sha.update("a".getBytes(StandardCharsets.US_ASCII));
+        copy.update("b".getBytes(StandardCharsets.US_ASCII));
+        byte[] prefix = new byte[100];
+        assertArrayEquals(jdk(concat(prefix, "a")), sha.digest());
+        assertArrayEquals(jdk(concat(prefix, "b")), copy.digest());
+    }
+
+    private static byte[] concat(byte[] prefix, String suffix) {
+        byte[] bytes = suffix.getBytes(StandardCharsets.US_ASCII);
+        byte[] result = Arrays.copyOf(prefix, prefix.length + bytes.length);
+        System.arraycopy(bytes, 0, result, prefix.length, bytes.length);
+        return result;
+    }
+
+    private static byte[] jdk(byte[] input) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(input);
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}